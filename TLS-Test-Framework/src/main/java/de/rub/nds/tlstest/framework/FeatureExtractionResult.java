@@ -22,6 +22,7 @@ import de.rub.nds.tlsscanner.core.report.TlsScanReport;
 import de.rub.nds.tlstest.framework.exceptions.FeatureExtractionFailedException;
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public abstract class FeatureExtractionResult implements Serializable {
@@ -41,6 +42,9 @@ public abstract class FeatureExtractionResult implements Serializable {
     private long closedAfterAppDataDelta = ConnectionClosingUtils.NO_RESULT;
     private long closedAfterFinishedDelta = ConnectionClosingUtils.NO_RESULT;
 
+    // derived from the supported collections on first use, reset by their setters
+    private transient volatile Views views;
+
     public FeatureExtractionResult(String host) {
         this.host = host;
         this.port = 4433;
@@ -51,6 +55,14 @@ public abstract class FeatureExtractionResult implements Serializable {
         this.port = port;
     }
 
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
     protected void setSharedFieldsFromReport(TlsScanReport siteReport) {
         checkCrucialCollections(
                 siteReport,
@@ -68,56 +80,52 @@ public abstract class FeatureExtractionResult implements Serializable {
 
         setClosedAfterAppDataDelta(siteReport.getClosedAfterAppDataDelta());
         setClosedAfterFinishedDelta(siteReport.getClosedAfterFinishedDelta());
+        views = null;
     }
 
+    private Views getViews() {
+        Views currentViews = views;
+        if (currentViews == null) {
+            // concurrent callers may build equal views, which is harmless
+            currentViews = new Views(this);
+            views = currentViews;
+        }
+        return currentViews;
+    }
+
+    /** @return the supported EC named groups, the returned list is immutable */
     public List<NamedGroup> getNamedGroups() {
-        // We limit the tests to EC Named Groups for now
-        return getSupportedNamedGroups().stream()
-                .filter(NamedGroup::isCurve)
-                .collect(Collectors.toList());
+        return getViews().namedGroups;
     }
 
+    /** @return the supported TLS 1.3 EC named groups, the returned list is immutable */
     public List<NamedGroup> getTls13Groups() {
-        // We limit the tests to EC Named Groups for now
-        return getSupportedTls13Groups().stream()
-                .filter(NamedGroup::isCurve)
-                .collect(Collectors.toList());
+        return getViews().tls13Groups;
     }
 
+    /** @return the supported FFDHE named groups, the returned list is immutable */
     public List<NamedGroup> getFfdheNamedGroups() {
-        // We only use these for FFDHE RFC tests for now
-        return getSupportedNamedGroups().stream()
-                .filter(NamedGroup::isDhGroup)
-                .collect(Collectors.toList());
+        return getViews().ffdheNamedGroups;
     }
 
+    /** @return the supported TLS 1.3 FFDHE named groups, the returned list is immutable */
     public List<NamedGroup> getTls13FfdheNamedGroups() {
-        // We limit the tests to EC Named Groups for now
-        return getTls13Groups().stream().filter(NamedGroup::isDhGroup).collect(Collectors.toList());
-    }
-
-    public synchronized Set<CipherSuite> getCipherSuites() {
-        if (getSupportedCipherSuites() == null) return new TreeSet<>();
-        Set<CipherSuite> set =
-                new TreeSet<CipherSuite>(
-                        (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.name(), b.name()));
-        set.addAll(
-                getSupportedCipherSuites().stream()
-                        .filter(i -> !i.isTLS13())
-                        .collect(Collectors.toSet()));
-        return set;
-    }
-
-    public synchronized Set<CipherSuite> getSupportedTls13CipherSuites() {
-        if (getSupportedCipherSuites() == null) return new TreeSet<>();
-        Set<CipherSuite> set =
-                new TreeSet<CipherSuite>(
-                        (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.name(), b.name()));
-        set.addAll(
-                getSupportedCipherSuites().stream()
-                        .filter(CipherSuite::isTLS13)
-                        .collect(Collectors.toSet()));
-        return set;
+        return getViews().tls13FfdheNamedGroups;
+    }
+
+    /**
+     * @return the supported cipher suites prior to TLS 1.3 ordered by name, the returned set is
+     *     immutable
+     */
+    public Set<CipherSuite> getCipherSuites() {
+        return getViews().cipherSuites;
+    }
+
+    /**
+     * @return the supported TLS 1.3 cipher suites ordered by name, the returned set is immutable
+     */
+    public Set<CipherSuite> getSupportedTls13CipherSuites() {
+        return getViews().tls13CipherSuites;
     }
 
     public Set<CipherSuite> getSupportedCipherSuites() {
@@ -126,6 +134,7 @@ public abstract class FeatureExtractionResult implements Serializable {
 
     public void setSupportedCipherSuites(Set<CipherSuite> supportedCipherSuites) {
         this.supportedCipherSuites = supportedCipherSuites;
+        views = null;
     }
 
     public Set<ProtocolVersion> getSupportedVersions() {
@@ -138,6 +147,7 @@ public abstract class FeatureExtractionResult implements Serializable {
 
     public void setSupportedNamedGroups(Set<NamedGroup> supportedNamedGroups) {
         this.supportedNamedGroups = supportedNamedGroups;
+        views = null;
     }
 
     public List<VersionSuiteListPair> getVersionSuitePairs() {
@@ -158,6 +168,7 @@ public abstract class FeatureExtractionResult implements Serializable {
 
     public void setSupportedTls13Groups(Set<NamedGroup> supportedTls13Groups) {
         this.supportedTls13Groups = supportedTls13Groups;
+        views = null;
     }
 
     public Map<AnalyzedProperty, TestResult> getResultMap() {
@@ -220,4 +231,51 @@ public abstract class FeatureExtractionResult implements Serializable {
     protected static void reportFailedFeatureExtraction(String reason) {
         throw new FeatureExtractionFailedException(reason);
     }
+
+    /**
+     * Immutable views derived from the supported collections, which are requested repeatedly by
+     * the derivations and tests.
+     */
+    private static class Views {
+        private final Set<CipherSuite> cipherSuites;
+        private final Set<CipherSuite> tls13CipherSuites;
+        private final List<NamedGroup> namedGroups;
+        private final List<NamedGroup> tls13Groups;
+        private final List<NamedGroup> ffdheNamedGroups;
+        private final List<NamedGroup> tls13FfdheNamedGroups;
+
+        private Views(FeatureExtractionResult result) {
+            Collection<CipherSuite> supportedCipherSuites =
+                    result.getSupportedCipherSuites() == null
+                            ? Collections.emptySet()
+                            : result.getSupportedCipherSuites();
+            cipherSuites = sortedByName(supportedCipherSuites, i -> !i.isTLS13());
+            tls13CipherSuites = sortedByName(supportedCipherSuites, CipherSuite::isTLS13);
+
+            // We limit the tests to EC Named Groups for now
+            namedGroups = filter(result.getSupportedNamedGroups(), NamedGroup::isCurve);
+            tls13Groups = filter(result.getSupportedTls13Groups(), NamedGroup::isCurve);
+            // We only use these for FFDHE RFC tests for now
+            ffdheNamedGroups = filter(result.getSupportedNamedGroups(), NamedGroup::isDhGroup);
+            tls13FfdheNamedGroups = filter(tls13Groups, NamedGroup::isDhGroup);
+        }
+
+        private static Set<CipherSuite> sortedByName(
+                Collection<CipherSuite> cipherSuites, Predicate<CipherSuite> filter) {
+            // keeps the order of the previously used TreeSet, EnumSet would iterate by ordinal
+            return Collections.unmodifiableSet(
+                    cipherSuites.stream()
+                            .filter(filter)
+                            .sorted(
+                                    (a, b) ->
+                                            String.CASE_INSENSITIVE_ORDER.compare(
+                                                    a.name(), b.name()))
+                            .collect(Collectors.toCollection(LinkedHashSet::new)));
+        }
+
+        private static List<NamedGroup> filter(
+                Collection<NamedGroup> groups, Predicate<NamedGroup> filter) {
+            return groups.stream().filter(filter).collect(Collectors.toUnmodifiableList());
+        }
+    }
 }
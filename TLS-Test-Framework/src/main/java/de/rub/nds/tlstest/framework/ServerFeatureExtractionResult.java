@@ -30,7 +30,7 @@ public class ServerFeatureExtractionResult extends FeatureExtractionResult {
     private List<JsonNode> guidelineChecks = new ArrayList<>();
 
     public ServerFeatureExtractionResult(String host, int port) {
-        super(host, 4433);
+        super(host, port);
     }
 
     public static ServerFeatureExtractionResult fromServerScanReport(ServerReport serverReport) {
@@ -7,12 +7,30 @@
  */
 package de.rub.nds.tlstest.framework;
 
+import de.rub.nds.anvilcore.context.AnvilContext;
 import de.rub.nds.anvilcore.context.AnvilTestConfig;
 import de.rub.nds.anvilcore.execution.AnvilListener;
 import de.rub.nds.tlsattacker.core.protocol.message.ClientHelloMessage;
 import de.rub.nds.tlsattacker.core.workflow.ParallelExecutor;
 import de.rub.nds.tlstest.framework.config.TlsTestConfig;
+import de.rub.nds.tlstest.framework.execution.AdaptiveConcurrencyController;
+import de.rub.nds.tlstest.framework.execution.PreparationWarmup;
+import de.rub.nds.tlstest.framework.execution.ReexecutionPolicy;
+import de.rub.nds.tlstest.framework.execution.ServerRestartCoordinator;
+import de.rub.nds.tlstest.framework.execution.TemplateCircuitBreaker;
 import de.rub.nds.tlstest.framework.execution.TestPreparator;
+import de.rub.nds.tlstest.framework.execution.WorkflowTraceTemplateCache;
+import de.rub.nds.tlstest.framework.statistics.MetricsEndpoint;
+import de.rub.nds.tlstest.framework.statistics.PhaseTimingStatistics;
+import de.rub.nds.tlstest.framework.statistics.RunMetrics;
+import de.rub.nds.tlstest.framework.statistics.TemplateDurationHistory;
+import de.rub.nds.tlstest.framework.utils.ThreadFactories;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.platform.launcher.TestPlan;
@@ -23,22 +41,31 @@ import org.junit.platform.launcher.TestPlan;
  */
 public class TestContext implements AnvilListener {
     private static final Logger LOGGER = LogManager.getLogger();
-    private TlsTestConfig config;
+    private volatile TlsTestConfig config;
 
-    private static TestContext instance = null;
-    private ParallelExecutor stateExecutor;
+    private volatile ParallelExecutor stateExecutor;
+    private volatile AdaptiveConcurrencyController concurrencyController;
+    private volatile ReexecutionPolicy reexecutionPolicy;
+    private volatile TemplateCircuitBreaker templateCircuitBreaker;
+    private volatile ServerRestartCoordinator serverRestartCoordinator;
+    private final PhaseTimingStatistics phaseTimingStatistics = new PhaseTimingStatistics();
+    private final RunMetrics runMetrics = new RunMetrics();
+    private volatile MetricsEndpoint metricsEndpoint;
+    private volatile TemplateDurationHistory templateDurationHistory;
 
-    private FeatureExtractionResult featureExtractionResult = null;
-    private ClientHelloMessage receivedClientHelloMessage;
+    private volatile FeatureExtractionResult featureExtractionResult = null;
+    private volatile ClientHelloMessage receivedClientHelloMessage;
 
-    private int serverHandshakesSinceRestart = 0;
-    private boolean aborted = false;
+    private final AtomicInteger serverHandshakesSinceRestart = new AtomicInteger();
+    private volatile boolean aborted = false;
 
-    public static synchronized TestContext getInstance() {
-        if (TestContext.instance == null) {
-            TestContext.instance = new TestContext();
-        }
-        return TestContext.instance;
+    // lazily initialized by the class loader, avoids locking on every access
+    private static class InstanceHolder {
+        private static final TestContext INSTANCE = new TestContext();
+    }
+
+    public static TestContext getInstance() {
+        return InstanceHolder.INSTANCE;
     }
 
     private TestContext() {
@@ -46,11 +73,11 @@ public class TestContext implements AnvilListener {
         this.config = new TlsTestConfig();
     }
 
-    public synchronized TlsTestConfig getConfig() {
+    public TlsTestConfig getConfig() {
         return config;
     }
 
-    public synchronized void setConfig(TlsTestConfig config) {
+    public void setConfig(TlsTestConfig config) {
         this.config = config;
     }
 
@@ -78,16 +105,87 @@ public class TestContext implements AnvilListener {
         this.stateExecutor = stateExecutor;
     }
 
-    public synchronized int getServerHandshakesSinceRestart() {
-        return serverHandshakesSinceRestart;
+    public AdaptiveConcurrencyController getConcurrencyController() {
+        return concurrencyController;
+    }
+
+    public void setConcurrencyController(AdaptiveConcurrencyController concurrencyController) {
+        this.concurrencyController = concurrencyController;
+    }
+
+    public ReexecutionPolicy getReexecutionPolicy() {
+        return reexecutionPolicy;
+    }
+
+    public void setReexecutionPolicy(ReexecutionPolicy reexecutionPolicy) {
+        this.reexecutionPolicy = reexecutionPolicy;
+    }
+
+    public TemplateCircuitBreaker getTemplateCircuitBreaker() {
+        return templateCircuitBreaker;
+    }
+
+    public void setTemplateCircuitBreaker(TemplateCircuitBreaker templateCircuitBreaker) {
+        this.templateCircuitBreaker = templateCircuitBreaker;
+    }
+
+    public ServerRestartCoordinator getServerRestartCoordinator() {
+        return serverRestartCoordinator;
+    }
+
+    public void setServerRestartCoordinator(ServerRestartCoordinator serverRestartCoordinator) {
+        this.serverRestartCoordinator = serverRestartCoordinator;
+    }
+
+    public PhaseTimingStatistics getPhaseTimingStatistics() {
+        return phaseTimingStatistics;
+    }
+
+    public RunMetrics getRunMetrics() {
+        return runMetrics;
+    }
+
+    /**
+     * @return the template durations of previous runs or null if no history file is configured
+     */
+    public TemplateDurationHistory getTemplateDurationHistory() {
+        Path historyPath = getTemplateHistoryPath();
+        if (historyPath == null) {
+            return null;
+        }
+        TemplateDurationHistory history = templateDurationHistory;
+        if (history == null) {
+            // concurrent callers may load the file twice, both read the same content
+            history = TemplateDurationHistory.load(historyPath);
+            templateDurationHistory = history;
+        }
+        return history;
+    }
+
+    private Path getTemplateHistoryPath() {
+        String templateHistory = getConfig().getTemplateHistory();
+        return templateHistory == null ? null : Paths.get(templateHistory);
     }
 
-    public synchronized void resetServerHandshakesSinceRestart() {
-        this.serverHandshakesSinceRestart = 0;
+    public int getServerHandshakesSinceRestart() {
+        return serverHandshakesSinceRestart.get();
     }
 
-    public synchronized void increaseServerHandshakesSinceRestart() {
-        this.serverHandshakesSinceRestart += 1;
+    public void resetServerHandshakesSinceRestart() {
+        serverHandshakesSinceRestart.set(0);
+    }
+
+    public void increaseServerHandshakesSinceRestart() {
+        serverHandshakesSinceRestart.incrementAndGet();
+    }
+
+    /**
+     * Atomically increases the number of handshakes since the last server restart.
+     *
+     * @return the updated number of handshakes
+     */
+    public int increaseAndGetServerHandshakesSinceRestart() {
+        return serverHandshakesSinceRestart.incrementAndGet();
     }
 
     @Override
@@ -99,8 +197,72 @@ public class TestContext implements AnvilListener {
     public boolean beforeStart(TestPlan testPlan, long totalTests) {
         // print out test counts before each run
         TestPreparator.printTestInfo(testPlan);
-        // run TestPreparator before each run
-        return new TestPreparator(getConfig(), this).prepareTestExecution();
+        runMetrics.setScheduledTests(totalTests);
+        startMetricsEndpoint();
+        // run TestPreparator before each run, the work that does not depend on the SUT is done
+        // while waiting for the SUT and its feature extraction
+        try (PreparationWarmup warmup =
+                new PreparationWarmup(
+                        ThreadFactories.create("Warmup-", getConfig().isUseVirtualThreads()))) {
+            warmup.submitSutIndependentTasks(getConfig());
+            boolean startTests =
+                    new TestPreparator(getConfig(), this, testPlan, warmup).prepareTestExecution();
+            warmup.awaitCompletion();
+            return startTests;
+        }
+    }
+
+    // only called when a run starts
+    private void startMetricsEndpoint() {
+        int metricsPort = getConfig().getMetricsPort();
+        if (metricsPort <= 0 || metricsEndpoint != null) {
+            return;
+        }
+        try {
+            MetricsEndpoint endpoint = new MetricsEndpoint(this);
+            endpoint.start(metricsPort);
+            metricsEndpoint = endpoint;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to start metrics endpoint on port {}", metricsPort, e);
+        }
+    }
+
+    /**
+     * Should be called once all tests of a run have been executed. Writes the statistics
+     * collected during execution to the output folder.
+     */
+    public void onRunFinished() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        if (concurrencyController != null) {
+            Map<String, Object> concurrencyStatistics = concurrencyController.getStatistics();
+            LOGGER.info(
+                    "Concurrent handshakes: current limit {}, peak limit {}",
+                    concurrencyStatistics.get("CurrentLimit"),
+                    concurrencyStatistics.get("PeakLimit"));
+            statistics.put("Concurrency", concurrencyStatistics);
+        }
+        if (reexecutionPolicy != null) {
+            statistics.put("Reexecutions", reexecutionPolicy.getStatistics());
+        }
+        if (templateCircuitBreaker != null) {
+            statistics.put("CircuitBreaker", templateCircuitBreaker.getStatistics());
+        }
+        statistics.put("PhaseTimings", phaseTimingStatistics.toReport());
+        if (getConfig().isCacheWorkflowTraces()) {
+            Map<String, Object> cacheStatistics = new LinkedHashMap<>();
+            cacheStatistics.put("Hits", WorkflowTraceTemplateCache.getInstance().getHits());
+            cacheStatistics.put("Misses", WorkflowTraceTemplateCache.getInstance().getMisses());
+            statistics.put("WorkflowTraceTemplateCache", cacheStatistics);
+        }
+        AnvilContext.getInstance()
+                .getMapper()
+                .saveExtraFileToPath(statistics, "executionStatistics");
+
+        TemplateDurationHistory history = getTemplateDurationHistory();
+        if (history != null) {
+            history.update(phaseTimingStatistics, runMetrics);
+            history.save(getTemplateHistoryPath());
+        }
     }
 
     @Override
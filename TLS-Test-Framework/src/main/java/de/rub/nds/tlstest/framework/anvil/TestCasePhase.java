@@ -0,0 +1,27 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.anvil;
+
+/** The phases a test case passes through, used to record where execution time is spent. */
+public enum TestCasePhase {
+    /** Creating the Config and applying the parameter combination */
+    CONFIG_PREPARATION,
+    /** Generating the WorkflowTrace using the WorkflowConfigurationFactory */
+    TRACE_GENERATION,
+    /** Adapting the WorkflowTrace before execution */
+    TRACE_ADAPTATION,
+    /** Running the trigger script of the client under test */
+    TRANSPORT_INIT,
+    /**
+     * Executing the WorkflowTrace, including reexecutions but excluding TRANSPORT_INIT as well as
+     * the time spent waiting for admission or a reexecution backoff
+     */
+    HANDSHAKE_EXECUTION,
+    /** Validating the executed WorkflowTrace */
+    VALIDATION
+}
@@ -13,10 +13,17 @@ import de.rub.nds.anvilcore.teststate.TestResult;
 import de.rub.nds.tlsattacker.core.constants.RunningModeType;
 import de.rub.nds.tlsattacker.core.state.State;
 import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
+import de.rub.nds.tlstest.framework.TestContext;
+import de.rub.nds.tlstest.framework.execution.ReexecutionPolicy;
+import de.rub.nds.tlstest.framework.execution.TemplateCircuitBreaker;
 import de.rub.nds.tlstest.framework.utils.ExecptionPrinter;
+import de.rub.nds.tlstest.framework.utils.Utils;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,6 +34,10 @@ public class TlsTestCase extends AnvilTestCase {
     private State state;
     private Integer srcPort = null;
     private Integer dstPort = null;
+    private String templateName;
+    private String templateId;
+    private final Map<TestCasePhase, Long> phaseDurations = new ConcurrentHashMap<>();
+    private Map<String, Integer> reexecutions;
 
     private TlsTestCase() {}
 
@@ -34,6 +45,15 @@ public class TlsTestCase extends AnvilTestCase {
             ExtensionContext context, State state, TlsParameterCombination parameterCombination) {
         super(parameterCombination, context);
         this.state = state;
+        ExtensionContext templateContext =
+                context == null ? null : Utils.getTemplateContainerExtensionContext(context);
+        if (templateContext != null && templateContext.getTestMethod().isPresent()) {
+            this.templateId = templateContext.getUniqueId();
+            this.templateName =
+                    templateContext.getRequiredTestClass().getName()
+                            + "."
+                            + templateContext.getRequiredTestMethod().getName();
+        }
     }
 
     public State getState() {
@@ -46,12 +66,15 @@ public class TlsTestCase extends AnvilTestCase {
 
     public void validateFinal(Consumer<TlsTestCase> validateFunction) {
         // Todo: move to WorkflowRunner?
+        long validationStart = System.nanoTime();
         try {
             validateFunction.accept(this);
             if (getTestResult() == TestResult.NOT_SPECIFIED) {
                 setTestResult(TestResult.STRICTLY_SUCCEEDED);
             }
+            recordCircuitBreakerOutcome(false);
         } catch (Throwable err) {
+            recordCircuitBreakerOutcome(true);
             if (state.getExecutionException() != null) {
                 err.addSuppressed(state.getExecutionException());
             }
@@ -62,7 +85,74 @@ public class TlsTestCase extends AnvilTestCase {
 
             setFailedReason(err);
             throw err;
+        } finally {
+            recordPhaseDuration(TestCasePhase.VALIDATION, System.nanoTime() - validationStart);
+        }
+    }
+
+    private void recordCircuitBreakerOutcome(boolean failed) {
+        TemplateCircuitBreaker circuitBreaker =
+                TestContext.getInstance().getTemplateCircuitBreaker();
+        if (circuitBreaker != null && templateId != null) {
+            circuitBreaker.recordOutcome(templateId, templateName, state, failed);
+        }
+    }
+
+    /**
+     * Adds the given duration to the time spent in the phase and to the run's phase statistics.
+     *
+     * @param phase the phase of the test case
+     * @param nanos duration in nanoseconds
+     */
+    public void recordPhaseDuration(TestCasePhase phase, long nanos) {
+        phaseDurations.merge(phase, nanos, Long::sum);
+        TestContext.getInstance().getPhaseTimingStatistics().record(templateName, phase, nanos);
+    }
+
+    /**
+     * @param phase the phase of the test case
+     * @return the time spent in the phase so far in nanoseconds
+     */
+    public long getPhaseDuration(TestCasePhase phase) {
+        return phaseDurations.getOrDefault(phase, 0L);
+    }
+
+    @JsonProperty("PhaseDurations")
+    public Map<String, Double> getPhaseDurations() {
+        if (phaseDurations.isEmpty()) {
+            return null;
+        }
+        Map<String, Double> durationsInMillis = new LinkedHashMap<>();
+        for (TestCasePhase phase : TestCasePhase.values()) {
+            Long nanos = phaseDurations.get(phase);
+            if (nanos != null) {
+                durationsInMillis.put(phase.name(), nanos / 1_000_000.0);
+            }
+        }
+        return durationsInMillis;
+    }
+
+    @JsonProperty("Reexecutions")
+    public Map<String, Integer> getReexecutions() {
+        return reexecutions;
+    }
+
+    /**
+     * @param reexecutionsPerClass number of reexecutions of the handshake per class of failure
+     */
+    public void setReexecutions(Map<ReexecutionPolicy.FailureClass, Integer> reexecutionsPerClass) {
+        if (reexecutionsPerClass.isEmpty()) {
+            this.reexecutions = null;
+            return;
         }
+        Map<String, Integer> reexecutions = new LinkedHashMap<>();
+        reexecutionsPerClass.forEach(
+                (failureClass, count) -> reexecutions.put(failureClass.name(), count));
+        this.reexecutions = reexecutions;
+    }
+
+    public String getTemplateName() {
+        return templateName;
     }
 
     @JsonProperty("Stacktrace")
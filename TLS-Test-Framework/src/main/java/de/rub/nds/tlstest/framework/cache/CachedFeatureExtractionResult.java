@@ -0,0 +1,64 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import de.rub.nds.tlstest.framework.FeatureExtractionResult;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/** A FeatureExtractionResult loaded from the cache along with the records of its probes. */
+public class CachedFeatureExtractionResult {
+
+    private final FeatureExtractionResult result;
+    private final Map<String, ProbeRecord> probeRecords;
+    private final long timeToLiveMillis;
+
+    CachedFeatureExtractionResult(
+            FeatureExtractionResult result,
+            Map<String, ProbeRecord> probeRecords,
+            long timeToLiveMillis) {
+        this.result = result;
+        this.probeRecords = probeRecords;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Determines the probes that have to be executed again. A probe is stale if it has never
+     * contributed to the result, if it was executed while the SUT presented a different
+     * identity, if its results expired or if a refresh was requested explicitly.
+     *
+     * @param probes names of the probes the result should be based on
+     * @param sutIdentity the identity the SUT presents now
+     * @param refreshProbes names of the probes that should be executed again in any case
+     * @return names of the stale probes in the order of the given probes
+     */
+    public List<String> getStaleProbes(
+            Collection<String> probes, String sutIdentity, Collection<String> refreshProbes) {
+        List<String> staleProbes = new LinkedList<>();
+        for (String probe : probes) {
+            ProbeRecord record = probeRecords.get(probe);
+            if (record == null
+                    || record.isStale(sutIdentity, timeToLiveMillis)
+                    || refreshProbes.contains(probe)) {
+                staleProbes.add(probe);
+            }
+        }
+        return staleProbes;
+    }
+
+    public FeatureExtractionResult getResult() {
+        return result;
+    }
+
+    public Map<String, ProbeRecord> getProbeRecords() {
+        return Collections.unmodifiableMap(probeRecords);
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rub.nds.tlstest.framework.FeatureExtractionResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Stores FeatureExtractionResults in a directory. Each result is stored in its own file named
+ * after the id of its {@link FeatureExtractionCacheKey} using the {@link
+ * FeatureExtractionResultCodec}, an index file lists the components of all keys along with a
+ * {@link ProbeRecord} for each probe that contributed to the result. The results of a probe expire
+ * after a configurable time to live, which allows callers to only execute expired or otherwise
+ * stale probes again.
+ *
+ * <p>The cache may be used by multiple processes at once. Results and the index are only modified
+ * while holding an exclusive lock on a lock file in the directory and all files are written to a
+ * temporary file first which then atomically replaces the target.
+ */
+public class FeatureExtractionCache {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String INDEX_FILE = "index.json";
+    private static final String LOCK_FILE = ".lock";
+    private static final String RESULT_FILE_SUFFIX = ".result.json";
+    private static final int INDEX_VERSION = 3;
+
+    private final Path directory;
+    private final long timeToLiveMillis;
+    private final FeatureExtractionResultCodec codec = new FeatureExtractionResultCodec();
+
+    /** An entry of the index, describing the key and the probes of a cached result. */
+    public static class IndexEntry {
+        @JsonProperty("Endpoint")
+        private String endpoint;
+
+        @JsonProperty("Dtls")
+        private boolean dtls;
+
+        @JsonProperty("FormatVersion")
+        private String formatVersion;
+
+        @JsonProperty("CreatedAt")
+        private long createdAt;
+
+        @JsonProperty("File")
+        private String file;
+
+        @JsonProperty("ProbeRecords")
+        private Map<String, ProbeRecord> probeRecords = new TreeMap<>();
+
+        private IndexEntry() {}
+
+        private IndexEntry(
+                FeatureExtractionCacheKey key,
+                String file,
+                Map<String, ProbeRecord> probeRecords) {
+            this.endpoint = key.getEndpoint();
+            this.dtls = key.isDtls();
+            this.formatVersion = key.getFormatVersion();
+            this.createdAt = System.currentTimeMillis();
+            this.file = file;
+            this.probeRecords.putAll(probeRecords);
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public Map<String, ProbeRecord> getProbeRecords() {
+            return probeRecords;
+        }
+    }
+
+    private static class Index {
+        @JsonProperty("Version")
+        private int version = INDEX_VERSION;
+
+        @JsonProperty("Entries")
+        private Map<String, IndexEntry> entries = new TreeMap<>();
+    }
+
+    private interface LockedOperation<T> {
+        T run(Index index) throws IOException;
+    }
+
+    /**
+     * @param directory directory of the cache, created if it does not exist
+     * @param timeToLiveMillis time after which the results of a probe expire, never if 0
+     */
+    public FeatureExtractionCache(Path directory, long timeToLiveMillis) {
+        this.directory = directory;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * @param key key of the requested result
+     * @return the cached result and the records of its probes or null if no entry exists
+     */
+    public CachedFeatureExtractionResult load(FeatureExtractionCacheKey key) {
+        String id = key.getId();
+        try {
+            IndexEntry entry = withIndex(index -> index.entries.get(id));
+            if (entry == null) {
+                LOGGER.info("No matching feature extraction result has been cached yet");
+                return null;
+            }
+            return new CachedFeatureExtractionResult(
+                    readResult(directory.resolve(entry.getFile())),
+                    new TreeMap<>(entry.getProbeRecords()),
+                    timeToLiveMillis);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read cached feature extraction result for {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param key key of the result
+     * @param result the result to cache
+     * @param probeRecords records of all probes that contributed to the result, by probe name
+     */
+    public void store(
+            FeatureExtractionCacheKey key,
+            FeatureExtractionResult result,
+            Map<String, ProbeRecord> probeRecords) {
+        String id = key.getId();
+        try {
+            withIndex(
+                    index -> {
+                        // written under the lock to keep the file in sync with its probe records
+                        writeAtomically(
+                                directory.resolve(id + RESULT_FILE_SUFFIX),
+                                output -> codec.write(result, output));
+                        index.entries.put(
+                                id, new IndexEntry(key, id + RESULT_FILE_SUFFIX, probeRecords));
+                        writeIndex(index);
+                        return null;
+                    });
+            LOGGER.info("Cached feature extraction result for {}", key);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to cache feature extraction result for {}", key, e);
+            return;
+        }
+
+        // human readable version of the result, not read by the cache
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker());
+            mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            writeAtomically(
+                    directory.resolve(id + ".json"), output -> mapper.writeValue(output, result));
+        } catch (IOException e) {
+            LOGGER.debug("Failed to write readable feature extraction result", e);
+        }
+    }
+
+    /**
+     * Removes all entries of the given endpoint.
+     *
+     * @param endpoint endpoint of the entries to remove or null to remove all entries
+     * @return the number of removed entries
+     */
+    public int invalidate(String endpoint) {
+        try {
+            return withIndex(
+                    index -> {
+                        List<String> ids = new ArrayList<>();
+                        index.entries.forEach(
+                                (id, entry) -> {
+                                    if (endpoint == null || endpoint.equals(entry.getEndpoint())) {
+                                        ids.add(id);
+                                    }
+                                });
+                        for (String id : ids) {
+                            remove(index, id);
+                        }
+                        writeIndex(index);
+                        return ids.size();
+                    });
+        } catch (IOException e) {
+            LOGGER.warn("Failed to invalidate cached feature extraction results", e);
+            return 0;
+        }
+    }
+
+    private void remove(Index index, String id) throws IOException {
+        IndexEntry entry = index.entries.remove(id);
+        if (entry != null) {
+            Files.deleteIfExists(directory.resolve(entry.getFile()));
+            Files.deleteIfExists(directory.resolve(id + ".json"));
+        }
+    }
+
+    /**
+     * Runs the operation while holding the lock of the cache directory. Threads of this process
+     * are serialized by the monitor, other processes by the file lock.
+     */
+    private synchronized <T> T withIndex(LockedOperation<T> operation) throws IOException {
+        Files.createDirectories(directory);
+        try (FileChannel lockChannel =
+                        FileChannel.open(
+                                directory.resolve(LOCK_FILE),
+                                StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE);
+                FileLock lock = lockChannel.lock()) {
+            return operation.run(readIndex());
+        }
+    }
+
+    private Index readIndex() {
+        Path indexPath = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(indexPath)) {
+            return new Index();
+        }
+        try {
+            Index index = new ObjectMapper().readValue(indexPath.toFile(), Index.class);
+            if (index.version != INDEX_VERSION || index.entries == null) {
+                LOGGER.warn("Ignoring cache index of unknown version {}", index.version);
+                return new Index();
+            }
+            return index;
+        } catch (IOException e) {
+            LOGGER.warn("Cache index is unreadable, starting with an empty index", e);
+            return new Index();
+        }
+    }
+
+    private void writeIndex(Index index) throws IOException {
+        writeAtomically(
+                directory.resolve(INDEX_FILE),
+                output ->
+                        new ObjectMapper()
+                                .writerWithDefaultPrettyPrinter()
+                                .writeValue(output, index));
+    }
+
+    private interface OutputWriter {
+        void write(OutputStream output) throws IOException;
+    }
+
+    private void writeAtomically(Path target, OutputWriter writer) throws IOException {
+        Path temporaryFile =
+                Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+                writer.write(output);
+            }
+            Files.move(
+                    temporaryFile,
+                    target,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private FeatureExtractionResult readResult(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return codec.read(input);
+        }
+    }
+}
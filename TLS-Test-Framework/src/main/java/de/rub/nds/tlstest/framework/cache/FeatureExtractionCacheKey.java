@@ -0,0 +1,102 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Identifies a cached FeatureExtractionResult. A result may only be reused if the SUT is reached
+ * at the same endpoint with the same protocol and the result was stored in the current format.
+ * Whether the results of the individual probes are still valid is determined by their {@link
+ * ProbeRecord}s.
+ */
+public class FeatureExtractionCacheKey {
+
+    private final String endpoint;
+    private final boolean dtls;
+    private final String formatVersion;
+
+    /**
+     * @param endpoint the endpoint mode and address of the SUT, e.g. "SERVER/localhost:4433"
+     * @param dtls whether DTLS is used
+     * @param formatVersion version of the format the result is stored in
+     */
+    public FeatureExtractionCacheKey(String endpoint, boolean dtls, String formatVersion) {
+        this.endpoint = endpoint;
+        this.dtls = dtls;
+        this.formatVersion = formatVersion;
+    }
+
+    /**
+     * @return the format version of results written by the current {@link
+     *     FeatureExtractionResultCodec}
+     */
+    public static String getCurrentFormatVersion() {
+        return Integer.toString(FeatureExtractionResultCodec.FORMAT_VERSION);
+    }
+
+    /**
+     * @return a hex encoded SHA-256 hash over all components of the key
+     */
+    public String getId() {
+        String canonical = String.join("\n", endpoint, Boolean.toString(dtls), formatVersion);
+        return sha256Hex(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256Hex(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public boolean isDtls() {
+        return dtls;
+    }
+
+    public String getFormatVersion() {
+        return formatVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FeatureExtractionCacheKey)) {
+            return false;
+        }
+        FeatureExtractionCacheKey that = (FeatureExtractionCacheKey) o;
+        return dtls == that.dtls
+                && endpoint.equals(that.endpoint)
+                && formatVersion.equals(that.formatVersion);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(endpoint, dtls, formatVersion);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s, format %s)", endpoint, dtls ? "DTLS" : "TLS", formatVersion);
+    }
+}
@@ -0,0 +1,479 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.rub.nds.scanner.core.probe.AnalyzedProperty;
+import de.rub.nds.scanner.core.probe.result.TestResult;
+import de.rub.nds.scanner.core.probe.result.TestResults;
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.CompressionMethod;
+import de.rub.nds.tlsattacker.core.constants.ExtensionType;
+import de.rub.nds.tlsattacker.core.constants.NamedGroup;
+import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
+import de.rub.nds.tlsattacker.core.constants.SignatureAndHashAlgorithm;
+import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
+import de.rub.nds.tlsscanner.core.probe.result.VersionSuiteListPair;
+import de.rub.nds.tlsscanner.serverscanner.probe.namedgroup.NamedGroupWitness;
+import de.rub.nds.tlstest.framework.ClientFeatureExtractionResult;
+import de.rub.nds.tlstest.framework.FeatureExtractionResult;
+import de.rub.nds.tlstest.framework.ServerFeatureExtractionResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Encodes FeatureExtractionResults as versioned JSON documents. Sets of enum constants are stored
+ * as Base64 encoded bitsets over the constants' ordinals. The document records the number of
+ * constants of each enum and a digest of their names, so bitsets written by an older version of
+ * the framework can still be read as long as constants were only appended to the enum.
+ *
+ * <p>Decoding is tolerant: unknown fields are ignored, missing fields keep their default value
+ * and entries of properties that no longer exist are skipped. Properties with a plain {@link
+ * TestResults} value are stored by name. Other results, such as list results, and the named group
+ * witnesses are stored as individually serialized objects using Java serialization. Such values
+ * must therefore be {@link Serializable}; a value that cannot be serialized fails the encoding, so
+ * the result is not cached at all instead of being cached without it. Likewise, a serialized
+ * object that can no longer be read, e.g. because its class changed with an update of the
+ * scanner, fails the decoding, so the cached result is treated as missing instead of lacking
+ * results that the tests rely on.
+ */
+public class FeatureExtractionResultCodec {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String TYPE_SERVER = "Server";
+    private static final String TYPE_CLIENT = "Client";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param result the result to encode
+     * @param output stream the document is written to
+     * @throws IOException if the document could not be written or the result contains a value
+     *     that cannot be serialized
+     */
+    public void write(FeatureExtractionResult result, OutputStream output) throws IOException {
+        mapper.writeValue(output, encode(result));
+    }
+
+    /**
+     * @param input stream containing a document written by {@link #write}
+     * @return the decoded result
+     * @throws IOException if the document is malformed or was written by an incompatible version
+     */
+    public FeatureExtractionResult read(InputStream input) throws IOException {
+        return decode(mapper.readTree(input));
+    }
+
+    ObjectNode encode(FeatureExtractionResult result) throws IOException {
+        ObjectNode document = mapper.createObjectNode();
+        document.put("Version", FORMAT_VERSION);
+        document.put(
+                "Type",
+                result instanceof ServerFeatureExtractionResult ? TYPE_SERVER : TYPE_CLIENT);
+        document.put("Host", result.getHost());
+        document.put("Port", result.getPort());
+
+        ObjectNode enums = document.putObject("Enums");
+        putEnumSet(
+                document,
+                enums,
+                "CipherSuites",
+                CipherSuite.class,
+                result.getSupportedCipherSuites());
+        putEnumSet(
+                document, enums, "Versions", ProtocolVersion.class, result.getSupportedVersions());
+        putEnumSet(
+                document, enums, "NamedGroups", NamedGroup.class, result.getSupportedNamedGroups());
+        putEnumSet(
+                document, enums, "Tls13Groups", NamedGroup.class, result.getSupportedTls13Groups());
+        putEnumSet(
+                document,
+                enums,
+                "CompressionMethods",
+                CompressionMethod.class,
+                result.getSupportedCompressionMethods());
+
+        ArrayNode versionSuitePairs = document.putArray("VersionSuitePairs");
+        for (VersionSuiteListPair pair : result.getVersionSuitePairs()) {
+            ObjectNode pairNode = versionSuitePairs.addObject();
+            pairNode.put("Version", pair.getVersion().name());
+            putEnumSet(
+                    pairNode, enums, "CipherSuites", CipherSuite.class, pair.getCipherSuiteList());
+        }
+
+        document.put("ClosedAfterAppDataDelta", result.getClosedAfterAppDataDelta());
+        document.put("ClosedAfterFinishedDelta", result.getClosedAfterFinishedDelta());
+        encodeResultMap(document, result.getResultMap());
+
+        if (result instanceof ServerFeatureExtractionResult) {
+            encodeServerFields(document, enums, (ServerFeatureExtractionResult) result);
+        } else if (result instanceof ClientFeatureExtractionResult) {
+            encodeClientFields(document, (ClientFeatureExtractionResult) result);
+        }
+        return document;
+    }
+
+    FeatureExtractionResult decode(JsonNode document) throws IOException {
+        int version = document.path("Version").asInt(-1);
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported feature extraction result format " + version);
+        }
+        JsonNode enums = document.path("Enums");
+        String host = document.path("Host").asText(null);
+
+        FeatureExtractionResult result;
+        String type = document.path("Type").asText();
+        if (TYPE_SERVER.equals(type)) {
+            ServerFeatureExtractionResult serverResult =
+                    new ServerFeatureExtractionResult(host, document.path("Port").asInt());
+            decodeServerFields(document, enums, serverResult);
+            result = serverResult;
+        } else if (TYPE_CLIENT.equals(type)) {
+            ClientFeatureExtractionResult clientResult = new ClientFeatureExtractionResult(host);
+            decodeClientFields(document, clientResult);
+            result = clientResult;
+        } else {
+            throw new IOException("Unknown feature extraction result type " + type);
+        }
+
+        result.setSupportedCipherSuites(
+                getEnumSet(document, enums, "CipherSuites", CipherSuite.class));
+        result.setSupportedVersions(getEnumSet(document, enums, "Versions", ProtocolVersion.class));
+        result.setSupportedNamedGroups(
+                getEnumSet(document, enums, "NamedGroups", NamedGroup.class));
+        result.setSupportedTls13Groups(
+                getEnumSet(document, enums, "Tls13Groups", NamedGroup.class));
+        result.setSupportedCompressionMethods(
+                getEnumSet(document, enums, "CompressionMethods", CompressionMethod.class));
+
+        List<VersionSuiteListPair> versionSuitePairs = new LinkedList<>();
+        for (JsonNode pairNode : document.path("VersionSuitePairs")) {
+            ProtocolVersion pairVersion =
+                    valueOf(ProtocolVersion.class, pairNode.path("Version").asText());
+            if (pairVersion != null) {
+                versionSuitePairs.add(
+                        new VersionSuiteListPair(
+                                pairVersion,
+                                new ArrayList<>(
+                                        getEnumSet(
+                                                pairNode,
+                                                enums,
+                                                "CipherSuites",
+                                                CipherSuite.class))));
+            }
+        }
+        result.setVersionSuitePairs(versionSuitePairs);
+
+        result.setClosedAfterAppDataDelta(
+                document.path("ClosedAfterAppDataDelta")
+                        .asLong(result.getClosedAfterAppDataDelta()));
+        result.setClosedAfterFinishedDelta(
+                document.path("ClosedAfterFinishedDelta")
+                        .asLong(result.getClosedAfterFinishedDelta()));
+        result.setResultMap(decodeResultMap(document));
+        return result;
+    }
+
+    private void encodeServerFields(
+            ObjectNode document, ObjectNode enums, ServerFeatureExtractionResult result)
+            throws IOException {
+        putEnumSet(
+                document,
+                enums,
+                "NegotiableExtensions",
+                ExtensionType.class,
+                result.getNegotiableExtensions());
+        putEnumSet(
+                document,
+                enums,
+                "SignatureAndHashAlgorithmsSke",
+                SignatureAndHashAlgorithm.class,
+                result.getSupportedSignatureAndHashAlgorithmsSke());
+        document.put("ConfigProfileIdentifier", result.getConfigProfileIdentifier());
+        document.put("ConfigProfileIdentifierTls13", result.getConfigProfileIdentifierTls13());
+        putSerializedValues(document, "NamedGroupWitnesses", result.getNamedGroupWitnesses());
+        putSerializedValues(
+                document, "NamedGroupWitnessesTls13", result.getNamedGroupWitnessesTls13());
+        ArrayNode guidelineChecks = document.putArray("GuidelineChecks");
+        result.getGuidelineChecks().forEach(guidelineChecks::add);
+    }
+
+    private void decodeServerFields(
+            JsonNode document, JsonNode enums, ServerFeatureExtractionResult result)
+            throws IOException {
+        result.setNegotiableExtensions(
+                getEnumSet(document, enums, "NegotiableExtensions", ExtensionType.class));
+        result.setSupportedSignatureAndHashAlgorithmsSke(
+                getEnumSet(
+                        document,
+                        enums,
+                        "SignatureAndHashAlgorithmsSke",
+                        SignatureAndHashAlgorithm.class));
+        result.setConfigProfileIdentifier(document.path("ConfigProfileIdentifier").asText(""));
+        result.setConfigProfileIdentifierTls13(
+                document.path("ConfigProfileIdentifierTls13").asText(""));
+        result.setNamedGroupWitnesses(
+                getSerializedValues(
+                        document,
+                        "NamedGroupWitnesses",
+                        NamedGroup.class,
+                        NamedGroupWitness.class));
+        result.setNamedGroupWitnessesTls13(
+                getSerializedValues(
+                        document,
+                        "NamedGroupWitnessesTls13",
+                        NamedGroup.class,
+                        NamedGroupWitness.class));
+        List<JsonNode> guidelineChecks = new ArrayList<>();
+        document.path("GuidelineChecks").forEach(guidelineChecks::add);
+        result.setGuidelineChecks(guidelineChecks);
+    }
+
+    private void encodeClientFields(ObjectNode document, ClientFeatureExtractionResult result) {
+        // ordered lists, stored by name to retain the client's order
+        putNames(
+                document,
+                "AdvertisedSignatureAndHashAlgorithms",
+                result.getAdvertisedSignatureAndHashAlgorithms());
+        putNames(document, "AdvertisedExtensions", result.getAdvertisedExtensions());
+    }
+
+    private void decodeClientFields(JsonNode document, ClientFeatureExtractionResult result) {
+        result.setAdvertisedSignatureAndHashAlgorithms(
+                getNames(
+                        document,
+                        "AdvertisedSignatureAndHashAlgorithms",
+                        SignatureAndHashAlgorithm.class));
+        result.setAdvertisedExtensions(
+                getNames(document, "AdvertisedExtensions", ExtensionType.class));
+    }
+
+    private void encodeResultMap(ObjectNode document, Map<AnalyzedProperty, TestResult> resultMap)
+            throws IOException {
+        if (resultMap == null) {
+            return;
+        }
+        ObjectNode results = document.putObject("Results");
+        ObjectNode serializedResults = document.putObject("SerializedResults");
+        for (Map.Entry<AnalyzedProperty, TestResult> entry : resultMap.entrySet()) {
+            if (!(entry.getKey() instanceof TlsAnalyzedProperty) || entry.getValue() == null) {
+                continue;
+            }
+            String property = ((TlsAnalyzedProperty) entry.getKey()).name();
+            if (entry.getValue() instanceof TestResults) {
+                results.put(property, ((TestResults) entry.getValue()).name());
+            } else {
+                serializedResults.put(property, serialize(entry.getValue()));
+            }
+        }
+    }
+
+    private Map<AnalyzedProperty, TestResult> decodeResultMap(JsonNode document)
+            throws IOException {
+        if (!document.has("Results")) {
+            return null;
+        }
+        Map<AnalyzedProperty, TestResult> resultMap = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> results = document.path("Results").fields();
+        while (results.hasNext()) {
+            Map.Entry<String, JsonNode> entry = results.next();
+            TlsAnalyzedProperty property = valueOf(TlsAnalyzedProperty.class, entry.getKey());
+            TestResults value = valueOf(TestResults.class, entry.getValue().asText());
+            if (property != null && value != null) {
+                resultMap.put(property, value);
+            }
+        }
+        Iterator<Map.Entry<String, JsonNode>> serializedResults =
+                document.path("SerializedResults").fields();
+        while (serializedResults.hasNext()) {
+            Map.Entry<String, JsonNode> entry = serializedResults.next();
+            TlsAnalyzedProperty property = valueOf(TlsAnalyzedProperty.class, entry.getKey());
+            if (property == null) {
+                continue;
+            }
+            TestResult value = deserialize(entry.getValue().asText(), TestResult.class);
+            if (value != null) {
+                resultMap.put(property, value);
+            }
+        }
+        return resultMap;
+    }
+
+    private static <E extends Enum<E>> void putEnumSet(
+            ObjectNode node,
+            ObjectNode enums,
+            String field,
+            Class<E> enumClass,
+            Collection<E> values) {
+        if (values == null) {
+            return;
+        }
+        if (!enums.has(enumClass.getSimpleName())) {
+            E[] constants = enumClass.getEnumConstants();
+            ObjectNode enumNode = enums.putObject(enumClass.getSimpleName());
+            enumNode.put("Constants", constants.length);
+            enumNode.put("Digest", getEnumDigest(constants, constants.length));
+        }
+        BitSet bits = new BitSet();
+        for (E value : values) {
+            bits.set(value.ordinal());
+        }
+        node.put(field, Base64.getEncoder().encodeToString(bits.toByteArray()));
+    }
+
+    private static <E extends Enum<E>> Set<E> getEnumSet(
+            JsonNode node, JsonNode enums, String field, Class<E> enumClass) throws IOException {
+        Set<E> values = new HashSet<>();
+        if (!node.has(field)) {
+            return values;
+        }
+        E[] constants = enumClass.getEnumConstants();
+        JsonNode enumNode = enums.path(enumClass.getSimpleName());
+        int storedConstants = enumNode.path("Constants").asInt(-1);
+        // constants appended since the document was written do not affect the stored ordinals
+        if (storedConstants < 0
+                || storedConstants > constants.length
+                || !getEnumDigest(constants, storedConstants)
+                        .equals(enumNode.path("Digest").asText())) {
+            throw new IOException(
+                    "Constants of " + enumClass.getSimpleName() + " changed incompatibly");
+        }
+        BitSet bits;
+        try {
+            bits = BitSet.valueOf(Base64.getDecoder().decode(node.path(field).asText()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed bitset " + field, e);
+        }
+        if (bits.length() > storedConstants) {
+            throw new IOException("Bitset " + field + " exceeds the constants of its enum");
+        }
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            values.add(constants[i]);
+        }
+        return values;
+    }
+
+    private static String getEnumDigest(Enum<?>[] constants, int count) {
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            names.append(constants[i].name()).append(',');
+        }
+        return FeatureExtractionCacheKey.sha256Hex(
+                        names.toString().getBytes(StandardCharsets.UTF_8))
+                .substring(0, 16);
+    }
+
+    private static void putNames(
+            ObjectNode node, String field, Collection<? extends Enum<?>> values) {
+        ArrayNode names = node.putArray(field);
+        values.forEach(value -> names.add(value.name()));
+    }
+
+    private static <E extends Enum<E>> List<E> getNames(
+            JsonNode node, String field, Class<E> enumClass) {
+        List<E> values = new LinkedList<>();
+        for (JsonNode name : node.path(field)) {
+            E value = valueOf(enumClass, name.asText());
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static <E extends Enum<E>, V> void putSerializedValues(
+            ObjectNode node, String field, Map<E, V> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        ObjectNode serializedValues = node.putObject(field);
+        for (Map.Entry<E, V> entry : values.entrySet()) {
+            serializedValues.put(entry.getKey().name(), serialize(entry.getValue()));
+        }
+    }
+
+    private static <E extends Enum<E>, V> Map<E, V> getSerializedValues(
+            JsonNode node, String field, Class<E> keyClass, Class<V> valueClass)
+            throws IOException {
+        Map<E, V> values = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> entries = node.path(field).fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            E key = valueOf(keyClass, entry.getKey());
+            if (key == null) {
+                continue;
+            }
+            V value = deserialize(entry.getValue().asText(), valueClass);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    private static <E extends Enum<E>> E valueOf(Class<E> enumClass, String name) {
+        try {
+            return Enum.valueOf(enumClass, name);
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Skipping unknown {} {}", enumClass.getSimpleName(), name);
+            return null;
+        }
+    }
+
+    static String serialize(Object value) throws IOException {
+        if (!(value instanceof Serializable)) {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+            objectOutput.writeObject(value);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static <V> V deserialize(String serialized, Class<V> valueClass) throws IOException {
+        try (ObjectInputStream objectInput =
+                new ObjectInputStream(
+                        new ByteArrayInputStream(Base64.getDecoder().decode(serialized)))) {
+            return valueClass.cast(objectInput.readObject());
+        } catch (IOException
+                | ClassNotFoundException
+                | ClassCastException
+                | IllegalArgumentException e) {
+            // e.g. the class of the value changed incompatibly
+            throw new IOException("Unreadable " + valueClass.getSimpleName(), e);
+        }
+    }
+
+}
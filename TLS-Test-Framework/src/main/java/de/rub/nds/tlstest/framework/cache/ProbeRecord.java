@@ -0,0 +1,59 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Describes when a probe that contributed to a cached FeatureExtractionResult was executed and
+ * which identity the SUT presented at that time.
+ */
+public class ProbeRecord {
+
+    @JsonProperty("SutIdentity")
+    private String sutIdentity;
+
+    @JsonProperty("ScannedAt")
+    private long scannedAt;
+
+    private ProbeRecord() {}
+
+    /**
+     * @param sutIdentity fingerprint of the SUT when the probe was executed, see {@link
+     *     SutIdentity}
+     * @param scannedAt time the probe was executed in milliseconds since the epoch
+     */
+    public ProbeRecord(String sutIdentity, long scannedAt) {
+        this.sutIdentity = sutIdentity;
+        this.scannedAt = scannedAt;
+    }
+
+    /**
+     * Results are always stale if the identity of the SUT could not be determined, either now or
+     * when the probe was executed.
+     *
+     * @param currentSutIdentity the identity the SUT presents now
+     * @param timeToLiveMillis time after which the probe's results expire, never if 0
+     * @return whether the probe's results may no longer reflect the SUT
+     */
+    public boolean isStale(String currentSutIdentity, long timeToLiveMillis) {
+        if (SutIdentity.UNKNOWN.equals(currentSutIdentity)
+                || !currentSutIdentity.equals(sutIdentity)) {
+            return true;
+        }
+        return timeToLiveMillis > 0 && System.currentTimeMillis() - scannedAt > timeToLiveMillis;
+    }
+
+    public String getSutIdentity() {
+        return sutIdentity;
+    }
+
+    public long getScannedAt() {
+        return scannedAt;
+    }
+}
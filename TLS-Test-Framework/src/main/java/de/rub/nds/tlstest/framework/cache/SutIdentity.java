@@ -0,0 +1,102 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import de.rub.nds.modifiablevariable.ModifiableVariable;
+import de.rub.nds.tlsattacker.core.constants.HandshakeMessageType;
+import de.rub.nds.tlsattacker.core.protocol.message.CertificateMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.ClientHelloMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.HandshakeMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.ServerHelloMessage;
+import de.rub.nds.tlsattacker.core.protocol.message.extension.ExtensionMessage;
+import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
+import de.rub.nds.tlsattacker.core.workflow.WorkflowTraceUtil;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Computes fingerprints of a SUT from the messages it sent. The fingerprints only cover values
+ * that stay the same across handshakes, such as the offered or selected cipher suites and
+ * extensions and the certificate, but not randoms or key shares. A changed fingerprint indicates
+ * that the SUT's configuration changed and cached feature extraction results are outdated.
+ */
+public class SutIdentity {
+
+    public static final String UNKNOWN = "unknown";
+
+    private SutIdentity() {}
+
+    /**
+     * @param trace an executed trace that received the server's first flight
+     * @return the fingerprint of the server or {@link #UNKNOWN} if no ServerHello was received
+     */
+    public static String ofServer(WorkflowTrace trace) {
+        ServerHelloMessage serverHello =
+                (ServerHelloMessage)
+                        WorkflowTraceUtil.getFirstReceivedMessage(
+                                HandshakeMessageType.SERVER_HELLO, trace);
+        if (serverHello == null) {
+            return UNKNOWN;
+        }
+        ByteArrayOutputStream fingerprint = new ByteArrayOutputStream();
+        append(fingerprint, serverHello.getProtocolVersion());
+        append(fingerprint, serverHello.getSelectedCipherSuite());
+        append(fingerprint, serverHello.getSelectedCompressionMethod());
+        appendExtensionTypes(fingerprint, serverHello);
+
+        CertificateMessage certificate =
+                (CertificateMessage)
+                        WorkflowTraceUtil.getFirstReceivedMessage(
+                                HandshakeMessageType.CERTIFICATE, trace);
+        if (certificate != null) {
+            append(fingerprint, certificate.getCertificatesListBytes());
+        }
+        return FeatureExtractionCacheKey.sha256Hex(fingerprint.toByteArray());
+    }
+
+    /**
+     * @param clientHello a ClientHello sent by the client
+     * @return the fingerprint of the client or {@link #UNKNOWN} if no ClientHello is given
+     */
+    public static String ofClient(ClientHelloMessage clientHello) {
+        if (clientHello == null) {
+            return UNKNOWN;
+        }
+        ByteArrayOutputStream fingerprint = new ByteArrayOutputStream();
+        append(fingerprint, clientHello.getProtocolVersion());
+        append(fingerprint, clientHello.getCipherSuites());
+        append(fingerprint, clientHello.getCompressions());
+        appendExtensionTypes(fingerprint, clientHello);
+        return FeatureExtractionCacheKey.sha256Hex(fingerprint.toByteArray());
+    }
+
+    private static void appendExtensionTypes(
+            ByteArrayOutputStream fingerprint, HandshakeMessage hello) {
+        if (hello.getExtensions() == null) {
+            return;
+        }
+        for (Object extension : hello.getExtensions()) {
+            append(fingerprint, ((ExtensionMessage) extension).getExtensionType());
+        }
+    }
+
+    private static void append(ByteArrayOutputStream fingerprint, ModifiableVariable<?> variable) {
+        Object value = variable == null ? null : variable.getValue();
+        byte[] bytes;
+        if (value instanceof byte[]) {
+            bytes = (byte[]) value;
+        } else if (value instanceof Byte) {
+            bytes = new byte[] {(Byte) value};
+        } else {
+            bytes = new byte[0];
+        }
+        // length prefix keeps adjacent values apart
+        fingerprint.writeBytes(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        fingerprint.writeBytes(bytes);
+    }
+}
@@ -45,6 +45,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -76,7 +77,22 @@ public class TlsTestConfig extends TLSDelegateConfig {
     private TestEndpointType testEndpointMode = null;
     private boolean parsedArgs = false;
 
-    private Config cachedConfig = null;
+    // the default cipher suite for TLS 1.2 and DTLS 1.2 if the SUT supports it, in order of
+    // preference
+    private static final List<CipherSuite> PREFERRED_CIPHER_SUITES =
+            List.of(
+                    CipherSuite.TLS_RSA_WITH_AES_128_GCM_SHA256,
+                    CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA256,
+                    CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA,
+                    CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256,
+                    CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256,
+                    CipherSuite.TLS_DHE_RSA_WITH_AES_256_CBC_SHA256,
+                    CipherSuite.TLS_DHE_RSA_WITH_AES_128_GCM_SHA256);
+
+    // only built once, guarded by the configLock
+    private volatile Config baseConfig = null;
+    private volatile PreparedConfig preparedConfig = null;
+    private final ReentrantLock configLock = new ReentrantLock();
     private Callable<Integer> timeoutActionScript;
 
     private ConfigDelegates parsedCommand = null;
@@ -96,6 +112,152 @@ public class TlsTestConfig extends TLSDelegateConfig {
     @Parameter(names = "-dtls", description = "Set DTLS as default for the test-suite.")
     private boolean useDTLS = false;
 
+    @JsonProperty("useVirtualThreads")
+    @Parameter(
+            names = "-useVirtualThreads",
+            description =
+                    "Execute handshakes on virtual threads. Requires a JVM that supports virtual "
+                            + "threads, platform threads are used otherwise. This does not raise "
+                            + "the number of concurrent handshakes, which stays bounded by "
+                            + "parallelTestCases or maxParallelHandshakes.")
+    private boolean useVirtualThreads = false;
+
+    @JsonProperty("adaptiveParallelism")
+    @Parameter(
+            names = "-adaptiveParallelism",
+            description =
+                    "Adapt the number of concurrently executed handshakes at runtime. Starts with "
+                            + "parallelTestCases and is bounded by maxParallelHandshakes. The "
+                            + "limit is lowered while the SUT is congested and raised again while "
+                            + "it is healthy.")
+    private boolean adaptiveParallelism = false;
+
+    @JsonProperty("maxParallelHandshakes")
+    @Parameter(
+            names = "-maxParallelHandshakes",
+            description =
+                    "Upper bound of concurrently executed handshakes if adaptiveParallelism is "
+                            + "enabled. Defaults to parallelTestCases, the number of test cases "
+                            + "waiting for a handshake at a time. Higher values are only reached "
+                            + "by tests executing handshakes asynchronously.")
+    private int maxParallelHandshakes = 0;
+
+    @JsonProperty("cacheWorkflowTraces")
+    @Parameter(
+            names = "-cacheWorkflowTraces",
+            description =
+                    "Cache WorkflowTraces generated for a test template and hand out copies of them "
+                            + "for further test cases with an equivalent Config.")
+    private boolean cacheWorkflowTraces = false;
+
+    @JsonProperty("metricsPort")
+    @Parameter(
+            names = "-metricsPort",
+            description =
+                    "Publish live metrics of the test run in the Prometheus text format on "
+                            + "http://127.0.0.1:<port>/metrics. Disabled if set to 0.")
+    private int metricsPort = 0;
+
+    @JsonProperty("maxReexecutions")
+    @Parameter(
+            names = "-maxReexecutions",
+            description =
+                    "Maximum number of reexecutions of a handshake. Only handshakes that failed on "
+                            + "the transport layer before any message was exchanged are "
+                            + "reexecuted.")
+    private int maxReexecutions = 1;
+
+    @JsonProperty("reexecutionBackoff")
+    @Parameter(
+            names = "-reexecutionBackoff",
+            description =
+                    "Upper bound in milliseconds of the randomized delay before the first "
+                            + "reexecution of a handshake. The bound doubles with each further "
+                            + "reexecution.")
+    private int reexecutionBackoff = 200;
+
+    @JsonProperty("disableReexecutionPolicy")
+    @Parameter(
+            names = "-disableReexecutionPolicy",
+            description =
+                    "Reexecute every failed handshake once without classifying the failure and "
+                            + "without backoff, ignoring maxReexecutions and reexecutionBackoff.")
+    private boolean disableReexecutionPolicy = false;
+
+    @JsonProperty("circuitBreakerThreshold")
+    @Parameter(
+            names = "-circuitBreakerThreshold",
+            description =
+                    "Fail the remaining test cases of a test template without executing them "
+                            + "after this number of consecutive test cases could not reach the SUT "
+                            + "with the same exception and socket state, even after their "
+                            + "reexecutions. Disabled if set to 0.")
+    private int circuitBreakerThreshold = 0;
+
+    @JsonProperty("templateHistory")
+    @Parameter(
+            names = "-templateHistory",
+            description =
+                    "File storing the durations of test templates across runs. If set, test "
+                            + "classes with the longest previous duration are started first.")
+    private String templateHistory = null;
+
+    @JsonProperty("parallelProbes")
+    @Parameter(
+            names = "-parallelProbes",
+            description =
+                    "Number of feature extraction probes executed concurrently against a server. "
+                            + "Probes that measure the server's timing are always executed alone.")
+    private int parallelProbes = 1;
+
+    @JsonProperty("cacheDirectory")
+    @Parameter(
+            names = "-cacheDirectory",
+            description = "Directory storing the results of previous feature extraction scans.")
+    private String cacheDirectory = "featureExtractionCache";
+
+    @JsonProperty("cacheTimeToLive")
+    @Parameter(
+            names = "-cacheTimeToLive",
+            description =
+                    "Hours after which cached feature extraction results expire. Cached results "
+                            + "never expire if set to 0.")
+    private int cacheTimeToLive = 0;
+
+    @JsonProperty("invalidateCache")
+    @Parameter(
+            names = "-invalidateCache",
+            description =
+                    "Remove all cached feature extraction results of the SUT's endpoint and scan "
+                            + "the SUT again.")
+    private boolean invalidateCache = false;
+
+    @JsonProperty("refreshProbes")
+    @Parameter(
+            names = "-refreshProbes",
+            description =
+                    "Comma separated list of TLS-Scanner probes (e.g. NAMED_GROUPS) that are "
+                            + "executed again even if their cached results are still valid. The "
+                            + "new results are merged into the cached feature extraction result.")
+    private List<String> refreshProbes = new ArrayList<>();
+
+    @JsonProperty("runAllProbes")
+    @Parameter(
+            names = "-runAllProbes",
+            description =
+                    "Run all feature extraction probes, even those whose results are not read by "
+                            + "the scheduled tests.")
+    private boolean runAllProbes = false;
+
+    @JsonProperty("readinessTimeout")
+    @Parameter(
+            names = "-readinessTimeout",
+            description =
+                    "Seconds to wait for the server to answer a ClientHello or for the client to "
+                            + "connect before the test run is aborted. Waits indefinitely if set "
+                            + "to 0.")
+    private int readinessTimeout = 0;
+
     // we might want to turn these into CLI parameters in the future
     private boolean expectTls13Alerts = false;
     private boolean enforceSenderRestrictions = false;
@@ -188,6 +350,23 @@ public class TlsTestConfig extends TLSDelegateConfig {
                 return;
             }
             this.setExportTraces(tlsTestConfig.isExportTraces());
+            this.setUseVirtualThreads(tlsTestConfig.isUseVirtualThreads());
+            this.setAdaptiveParallelism(tlsTestConfig.isAdaptiveParallelism());
+            this.setMaxParallelHandshakes(tlsTestConfig.getMaxParallelHandshakes());
+            this.setCacheWorkflowTraces(tlsTestConfig.isCacheWorkflowTraces());
+            this.setMetricsPort(tlsTestConfig.getMetricsPort());
+            this.setMaxReexecutions(tlsTestConfig.getMaxReexecutions());
+            this.setReexecutionBackoff(tlsTestConfig.getReexecutionBackoff());
+            this.setDisableReexecutionPolicy(tlsTestConfig.isDisableReexecutionPolicy());
+            this.setCircuitBreakerThreshold(tlsTestConfig.getCircuitBreakerThreshold());
+            this.setTemplateHistory(tlsTestConfig.getTemplateHistory());
+            this.setParallelProbes(tlsTestConfig.getParallelProbes());
+            this.setCacheDirectory(tlsTestConfig.getCacheDirectory());
+            this.setCacheTimeToLive(tlsTestConfig.getCacheTimeToLive());
+            this.setInvalidateCache(tlsTestConfig.isInvalidateCache());
+            this.setRefreshProbes(tlsTestConfig.getRefreshProbes());
+            this.setRunAllProbes(tlsTestConfig.isRunAllProbes());
+            this.setReadinessTimeout(tlsTestConfig.getReadinessTimeout());
             this.anvilTestConfig = tlsTestConfig.getAnvilTestConfig();
 
             TestClientDelegate testClientDelegate = tlsTestConfig.getTestClientDelegate();
@@ -308,93 +487,109 @@ public class TlsTestConfig extends TLSDelegateConfig {
         }
     }
 
+    /**
+     * Creates the config for a single test. The config is a copy of a config that is prepared
+     * once for the current FeatureExtractionResult, hence no lock is taken and the defaults
+     * depending on the SUT are not derived again for every test.
+     */
     @Override
-    public synchronized Config createConfig() {
-        if (cachedConfig != null) {
-            Config config = cachedConfig.createCopy();
-            FeatureExtractionResult report = TestContext.getInstance().getFeatureExtractionResult();
-            if (report != null) {
-                List<CipherSuite> supported = new ArrayList<>();
-                if (TestContext.getInstance().getConfig().getTestEndpointMode()
-                        == TestEndpointType.CLIENT) {
-                    if (!report.getCipherSuites()
-                            .contains(config.getDefaultSelectedCipherSuite())) {
-                        supported.addAll(report.getCipherSuites());
-                    }
-                    config.setAddRenegotiationInfoExtension(checkRenegotiationInfoOffer());
+    public Config createConfig() {
+        return getPreparedConfig().config.createCopy();
+    }
+
+    /**
+     * Prepares the configs for the current FeatureExtractionResult. Should be called once the
+     * feature extraction finished, configs are otherwise prepared by the first test.
+     */
+    public void prepareConfigs() {
+        getPreparedConfig();
+    }
+
+    private PreparedConfig getPreparedConfig() {
+        FeatureExtractionResult report = TestContext.getInstance().getFeatureExtractionResult();
+        PreparedConfig prepared = preparedConfig;
+        if (prepared == null || prepared.featureExtractionResult != report) {
+            // concurrent callers may prepare the same config, which is harmless as only one
+            // of them is kept
+            Config config = prepareConfig(getBaseConfig(), report);
+            Config tls13Config = config.createCopy();
+            applyTls13Defaults(tls13Config);
+            prepared = new PreparedConfig(report, config, tls13Config);
+            preparedConfig = prepared;
+        }
+        return prepared;
+    }
+
+    private Config getBaseConfig() {
+        Config config = baseConfig;
+        if (config == null) {
+            // a ReentrantLock does not pin the carrier thread when running on virtual threads
+            configLock.lock();
+            try {
+                config = baseConfig;
+                if (config == null) {
+                    config = buildBaseConfig();
+                    baseConfig = config;
+                }
+            } finally {
+                configLock.unlock();
+            }
+        }
+        return config;
+    }
+
+    /** Applies the defaults depending on the SUT to a copy of the base config. */
+    private Config prepareConfig(Config baseConfig, FeatureExtractionResult report) {
+        Config config = baseConfig.createCopy();
+        if (report != null) {
+            List<CipherSuite> supported = new ArrayList<>();
+            if (TestContext.getInstance().getConfig().getTestEndpointMode()
+                    == TestEndpointType.CLIENT) {
+                if (!report.getCipherSuites().contains(config.getDefaultSelectedCipherSuite())) {
+                    supported.addAll(report.getCipherSuites());
+                }
+                config.setAddRenegotiationInfoExtension(checkRenegotiationInfoOffer());
+            } else {
+                Optional<VersionSuiteListPair> suitePair;
+                if (useDTLS) {
+                    suitePair =
+                            report.getVersionSuitePairs().stream()
+                                    .filter(i -> i.getVersion() == ProtocolVersion.DTLS12)
+                                    .findFirst();
                 } else {
-                    Optional<VersionSuiteListPair> suitePair;
-                    if (useDTLS) {
-                        suitePair =
-                                report.getVersionSuitePairs().stream()
-                                        .filter(i -> i.getVersion() == ProtocolVersion.DTLS12)
-                                        .findFirst();
-                    } else {
-                        suitePair =
-                                report.getVersionSuitePairs().stream()
-                                        .filter(i -> i.getVersion() == ProtocolVersion.TLS12)
-                                        .findFirst();
-                    }
-                    if (suitePair.isPresent()
-                            && !suitePair
-                                    .get()
-                                    .getCipherSuiteList()
-                                    .contains(config.getDefaultSelectedCipherSuite())) {
-                        supported.addAll(suitePair.get().getCipherSuiteList());
-                    }
+                    suitePair =
+                            report.getVersionSuitePairs().stream()
+                                    .filter(i -> i.getVersion() == ProtocolVersion.TLS12)
+                                    .findFirst();
                 }
-                if (supported.size() > 0) {
-                    if (supported.contains(CipherSuite.TLS_RSA_WITH_AES_128_GCM_SHA256)) {
-                        config.setDefaultSelectedCipherSuite(
-                                CipherSuite.TLS_RSA_WITH_AES_128_GCM_SHA256);
-                    } else if (supported.contains(CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA256)) {
-                        config.setDefaultSelectedCipherSuite(
-                                CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA256);
-                    } else if (supported.contains(CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA)) {
-                        config.setDefaultSelectedCipherSuite(
-                                CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA);
-                    } else if (supported.contains(
-                            CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256)) {
-                        config.setDefaultSelectedCipherSuite(
-                                CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256);
-                    } else if (supported.contains(
-                            CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256)) {
-                        config.setDefaultSelectedCipherSuite(
-                                CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256);
-                    } else if (supported.contains(
-                            CipherSuite.TLS_DHE_RSA_WITH_AES_256_CBC_SHA256)) {
-                        config.setDefaultSelectedCipherSuite(
-                                CipherSuite.TLS_DHE_RSA_WITH_AES_256_CBC_SHA256);
-                    } else if (supported.contains(
-                            CipherSuite.TLS_DHE_RSA_WITH_AES_128_GCM_SHA256)) {
-                        config.setDefaultSelectedCipherSuite(
-                                CipherSuite.TLS_DHE_RSA_WITH_AES_128_GCM_SHA256);
-                    } else {
-                        config.setDefaultSelectedCipherSuite(supported.get(0));
-                    }
+                if (suitePair.isPresent()
+                        && !suitePair
+                                .get()
+                                .getCipherSuiteList()
+                                .contains(config.getDefaultSelectedCipherSuite())) {
+                    supported.addAll(suitePair.get().getCipherSuiteList());
                 }
             }
-            if (useDTLS) {
-                boolean exists = false;
-                for (Delegate delegate : getDelegateList()) {
-                    if (delegate instanceof DtlsDelegate) {
-                        exists = true;
-                        delegate.applyDelegate(config);
-                    } else if (delegate instanceof TestClientDelegate) {
-                        delegate.applyDelegate(config);
-                    }
-                }
-                if (!exists) {
-                    DtlsDelegate dtlsDelegate = new DtlsDelegate();
-                    dtlsDelegate.setDTLS(true);
-                    dtlsDelegate.applyDelegate(config);
-                    addDelegate(dtlsDelegate);
+            if (supported.size() > 0) {
+                config.setDefaultSelectedCipherSuite(
+                        PREFERRED_CIPHER_SUITES.stream()
+                                .filter(supported::contains)
+                                .findFirst()
+                                .orElse(supported.get(0)));
+            }
+        }
+        if (useDTLS) {
+            for (Delegate delegate : getDelegateList()) {
+                if (delegate instanceof DtlsDelegate || delegate instanceof TestClientDelegate) {
+                    delegate.applyDelegate(config);
                 }
-                config.setSupportedVersions(ProtocolVersion.DTLS12);
             }
-            return config;
+            config.setSupportedVersions(ProtocolVersion.DTLS12);
         }
+        return config;
+    }
 
+    private Config buildBaseConfig() {
         switch (this.testEndpointMode) {
             case CLIENT:
                 addDelegate(this.testClientDelegate);
@@ -454,10 +649,34 @@ public class TlsTestConfig extends TLSDelegateConfig {
                 "pop3",
                 "managesieve");
 
-        cachedConfig = config;
+        if (useDTLS && getDelegate(DtlsDelegate.class) == null) {
+            DtlsDelegate dtlsDelegate = new DtlsDelegate();
+            dtlsDelegate.setDTLS(true);
+            addDelegate(dtlsDelegate);
+        }
         return config;
     }
 
+    /**
+     * The configs prepared for a FeatureExtractionResult. The config is the TLS 1.2 or DTLS 1.2
+     * config depending on the mode of the run. The configs are never modified once they are
+     * published and only handed out as copies.
+     */
+    private static class PreparedConfig {
+        private final FeatureExtractionResult featureExtractionResult;
+        private final Config config;
+        private final Config tls13Config;
+
+        private PreparedConfig(
+                FeatureExtractionResult featureExtractionResult,
+                Config config,
+                Config tls13Config) {
+            this.featureExtractionResult = featureExtractionResult;
+            this.config = config;
+            this.tls13Config = tls13Config;
+        }
+    }
+
     public boolean checkRenegotiationInfoOffer() {
         if (TestContext.getInstance().getConfig().getTestEndpointMode() == TestEndpointType.CLIENT
                 && TestContext.getInstance().getFeatureExtractionResult() != null) {
@@ -478,9 +697,15 @@ public class TlsTestConfig extends TLSDelegateConfig {
         return true;
     }
 
-    public synchronized Config createTls13Config() {
-        Config config = this.createConfig();
+    /**
+     * Creates the config for a single TLS 1.3 test. Like {@link #createConfig()}, the config is
+     * a copy of a config prepared once for the current FeatureExtractionResult.
+     */
+    public Config createTls13Config() {
+        return getPreparedConfig().tls13Config.createCopy();
+    }
 
+    private static void applyTls13Defaults(Config config) {
         config.setHighestProtocolVersion(ProtocolVersion.TLS13);
         config.setAddEllipticCurveExtension(true);
         config.setAddECPointFormatExtension(true);
@@ -516,8 +741,6 @@ public class TlsTestConfig extends TLSDelegateConfig {
         config.setDefaultSelectedNamedGroup(NamedGroup.ECDH_X25519);
 
         config.setDefaultClientKeyShareNamedGroups(config.getDefaultClientNamedGroups());
-
-        return config;
     }
 
     public TestEndpointType getTestEndpointMode() {
@@ -617,4 +840,140 @@ public class TlsTestConfig extends TLSDelegateConfig {
     public void setUseDTLS(boolean useDTLS) {
         this.useDTLS = useDTLS;
     }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public boolean isAdaptiveParallelism() {
+        return adaptiveParallelism;
+    }
+
+    public void setAdaptiveParallelism(boolean adaptiveParallelism) {
+        this.adaptiveParallelism = adaptiveParallelism;
+    }
+
+    public int getMaxParallelHandshakes() {
+        return maxParallelHandshakes;
+    }
+
+    public void setMaxParallelHandshakes(int maxParallelHandshakes) {
+        this.maxParallelHandshakes = maxParallelHandshakes;
+    }
+
+    public boolean isCacheWorkflowTraces() {
+        return cacheWorkflowTraces;
+    }
+
+    public void setCacheWorkflowTraces(boolean cacheWorkflowTraces) {
+        this.cacheWorkflowTraces = cacheWorkflowTraces;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    public int getMaxReexecutions() {
+        return maxReexecutions;
+    }
+
+    public void setMaxReexecutions(int maxReexecutions) {
+        this.maxReexecutions = maxReexecutions;
+    }
+
+    public int getReexecutionBackoff() {
+        return reexecutionBackoff;
+    }
+
+    public void setReexecutionBackoff(int reexecutionBackoff) {
+        this.reexecutionBackoff = reexecutionBackoff;
+    }
+
+    public boolean isDisableReexecutionPolicy() {
+        return disableReexecutionPolicy;
+    }
+
+    public void setDisableReexecutionPolicy(boolean disableReexecutionPolicy) {
+        this.disableReexecutionPolicy = disableReexecutionPolicy;
+    }
+
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+    }
+
+    public String getTemplateHistory() {
+        return templateHistory;
+    }
+
+    public void setTemplateHistory(String templateHistory) {
+        this.templateHistory = templateHistory;
+    }
+
+    public int getParallelProbes() {
+        return parallelProbes;
+    }
+
+    public void setParallelProbes(int parallelProbes) {
+        this.parallelProbes = parallelProbes;
+    }
+
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    public int getCacheTimeToLive() {
+        return cacheTimeToLive;
+    }
+
+    public void setCacheTimeToLive(int cacheTimeToLive) {
+        this.cacheTimeToLive = cacheTimeToLive;
+    }
+
+    public boolean isInvalidateCache() {
+        return invalidateCache;
+    }
+
+    public void setInvalidateCache(boolean invalidateCache) {
+        this.invalidateCache = invalidateCache;
+    }
+
+    public List<String> getRefreshProbes() {
+        return refreshProbes;
+    }
+
+    public void setRefreshProbes(List<String> refreshProbes) {
+        this.refreshProbes = refreshProbes;
+    }
+
+    public boolean isRunAllProbes() {
+        return runAllProbes;
+    }
+
+    public void setRunAllProbes(boolean runAllProbes) {
+        this.runAllProbes = runAllProbes;
+    }
+
+    public int getReadinessTimeout() {
+        return readinessTimeout;
+    }
+
+    public void setReadinessTimeout(int readinessTimeout) {
+        this.readinessTimeout = readinessTimeout;
+    }
 }
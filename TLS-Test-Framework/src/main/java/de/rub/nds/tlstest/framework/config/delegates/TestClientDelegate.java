@@ -17,6 +17,10 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -36,8 +40,16 @@ public class TestClientDelegate extends ServerDelegate {
             variableArity = true)
     protected List<String> triggerScriptCommand = new ArrayList<>();
 
+    @Parameter(
+            names = "-triggerScriptTimeout",
+            description =
+                    "Seconds after which a process started by the trigger script is terminated. "
+                            + "Processes are never terminated if set to 0.")
+    protected int triggerScriptTimeout = 0;
+
     @JsonIgnore private Function<State, Integer> triggerScript;
     @JsonIgnore private ServerSocket serverSocket;
+    @JsonIgnore private final Set<Process> runningTriggerProcesses = ConcurrentHashMap.newKeySet();
 
     @Override
     public void applyDelegate(Config config) {
@@ -47,9 +59,7 @@ public class TestClientDelegate extends ServerDelegate {
             triggerScript =
                     (State state) -> {
                         try {
-                            ProcessBuilder processBuilder =
-                                    new ProcessBuilder(triggerScriptCommand);
-                            Process p = processBuilder.start();
+                            startTriggerProcess();
                             return 0;
                         } catch (IOException ex) {
                             LOGGER.error(ex);
@@ -68,6 +78,44 @@ public class TestClientDelegate extends ServerDelegate {
         }
     }
 
+    private void startTriggerProcess() throws IOException {
+        // the output is never read, an unread pipe would eventually block the process
+        Process process =
+                new ProcessBuilder(triggerScriptCommand)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+        process.getOutputStream().close();
+        runningTriggerProcesses.add(process);
+
+        CompletableFuture<Process> exit = process.onExit();
+        if (triggerScriptTimeout > 0) {
+            exit = exit.orTimeout(triggerScriptTimeout, TimeUnit.SECONDS);
+        }
+        exit.whenComplete(
+                (exitedProcess, timeout) -> {
+                    if (timeout != null) {
+                        LOGGER.warn(
+                                "Trigger script did not terminate within {} seconds, destroying it",
+                                triggerScriptTimeout);
+                        process.destroyForcibly();
+                    }
+                    runningTriggerProcesses.remove(process);
+                });
+    }
+
+    /**
+     * @return the number of processes started by the trigger script that did not terminate yet
+     */
+    public int countRunningTriggerProcesses() {
+        return runningTriggerProcesses.size();
+    }
+
+    /** Terminates all processes started by the trigger script that are still running. */
+    public void destroyTriggerProcesses() {
+        runningTriggerProcesses.forEach(Process::destroy);
+    }
+
     public int executeTriggerScript(State state) throws Exception {
         return this.triggerScript.apply(state);
     }
@@ -96,6 +144,14 @@ public class TestClientDelegate extends ServerDelegate {
         this.triggerScriptCommand = triggerScriptCommand;
     }
 
+    public int getTriggerScriptTimeout() {
+        return triggerScriptTimeout;
+    }
+
+    public void setTriggerScriptTimeout(int triggerScriptTimeout) {
+        this.triggerScriptTimeout = triggerScriptTimeout;
+    }
+
     public void setUseUDP(boolean useUDP) {
         this.useUDP = useUDP;
     }
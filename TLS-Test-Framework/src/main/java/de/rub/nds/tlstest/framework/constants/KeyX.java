@@ -30,7 +30,7 @@ import org.junit.jupiter.api.extension.ExtensionContext;
 
 public class KeyX implements KeyExchange {
     private static final Logger LOGGER = LogManager.getLogger();
-    private static Map<CipherSuite, ServerKeyExchangeMessage> cipherSuiteSkeCache;
+    private static volatile Map<CipherSuite, ServerKeyExchangeMessage> cipherSuiteSkeCache;
 
     private KeyExchangeType[] supportedKxs = new KeyExchangeType[0];
     private boolean mergeSupportedWithClassSupported = true;
@@ -78,9 +78,6 @@ public class KeyX implements KeyExchange {
     public void filterSupportedKexs() {
         TestContext context = TestContext.getInstance();
         FeatureExtractionResult report = context.getFeatureExtractionResult();
-        if (cipherSuiteSkeCache == null) {
-            buildCache();
-        }
 
         Set<CipherSuite> ciphers = report.getCipherSuites();
         if (ciphers == null) {
@@ -92,7 +89,7 @@ public class KeyX implements KeyExchange {
         for (CipherSuite cipherSuite : ciphers) {
             KeyExchangeAlgorithm kexalg = AlgorithmResolver.getKeyExchangeAlgorithm(cipherSuite);
             ServerKeyExchangeMessage serverKeyExchangeMessage =
-                    cipherSuiteSkeCache.get(cipherSuite);
+                    getCipherSuiteSkeCache().get(cipherSuite);
             for (KeyExchangeType type : this.supported()) {
                 if (kexalg == null
                         || (requiresServerKeyExchMsg && serverKeyExchangeMessage == null)) {
@@ -180,15 +177,13 @@ public class KeyX implements KeyExchange {
         if (cipherSuite.isTLS13()) {
             return Arrays.asList(this.supported()).contains(KeyExchangeType.ALL13);
         }
-        if (cipherSuiteSkeCache == null) {
-            buildCache();
-        }
 
         KeyExchangeAlgorithm alg = AlgorithmResolver.getKeyExchangeAlgorithm(cipherSuite);
         // TLS 1.3 is handled above
         assert alg != null;
 
-        ServerKeyExchangeMessage serverKeyExchangeMessage = cipherSuiteSkeCache.get(cipherSuite);
+        ServerKeyExchangeMessage serverKeyExchangeMessage =
+                getCipherSuiteSkeCache().get(cipherSuite);
 
         boolean compatible = false;
         for (KeyExchangeType type : this.supported()) {
@@ -233,19 +228,42 @@ public class KeyX implements KeyExchange {
         }
     }
 
-    private void buildCache() {
-        cipherSuiteSkeCache = new HashMap<>();
+    /**
+     * Builds the ServerKeyExchange messages of all cipher suites if this did not happen yet. The
+     * messages do not depend on the SUT, hence they can be built before the feature extraction.
+     */
+    public static void initializeCache() {
+        getCipherSuiteSkeCache();
+    }
+
+    private static Map<CipherSuite, ServerKeyExchangeMessage> getCipherSuiteSkeCache() {
+        Map<CipherSuite, ServerKeyExchangeMessage> cache = cipherSuiteSkeCache;
+        if (cache == null) {
+            synchronized (KeyX.class) {
+                cache = cipherSuiteSkeCache;
+                if (cache == null) {
+                    cache = buildCache();
+                    cipherSuiteSkeCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static Map<CipherSuite, ServerKeyExchangeMessage> buildCache() {
+        Map<CipherSuite, ServerKeyExchangeMessage> cache = new HashMap<>();
         Config helperConfig = Config.createConfig();
         for (CipherSuite cipherSuite : CipherSuite.values()) {
             KeyExchangeAlgorithm kexalg = AlgorithmResolver.getKeyExchangeAlgorithm(cipherSuite);
             if (cipherSuite.isEphemeral() || cipherSuite.isSrp()) {
-                cipherSuiteSkeCache.put(
+                cache.put(
                         cipherSuite,
                         new WorkflowConfigurationFactory(helperConfig)
                                 .createServerKeyExchangeMessage(kexalg));
             } else {
-                cipherSuiteSkeCache.put(cipherSuite, null);
+                cache.put(cipherSuite, null);
             }
         }
+        return cache;
     }
 }
@@ -0,0 +1,206 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of handshakes that are executed against the SUT at the same time. If adaptive
+ * mode is enabled, the limit is adjusted at runtime following an additive-increase /
+ * multiplicative-decrease scheme: the limit grows by one per window of healthy completions and is
+ * halved when a completion indicates congestion (failed connections, transport handler exceptions
+ * or reexecutions) or when the latency rises notably above its long-term average.
+ *
+ * <p>Submissions exceeding the current limit are queued and started once running handshakes
+ * complete, hence no thread is blocked while waiting for admission.
+ */
+public class AdaptiveConcurrencyController {
+
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double SHORT_TERM_SMOOTHING = 0.2;
+    private static final double LONG_TERM_SMOOTHING = 0.01;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Runnable> pendingSubmissions = new ArrayDeque<>();
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final boolean adaptive;
+
+    private volatile double limit;
+    private int peakLimit;
+    private int inFlight = 0;
+    private long completionsSinceDecrease = 0;
+    private double shortTermLatency = -1;
+    private double longTermLatency = -1;
+
+    private long completions = 0;
+    private long congestedCompletions = 0;
+    private long decreases = 0;
+
+    /**
+     * @param initialLimit number of concurrent handshakes to start with
+     * @param maxLimit upper bound of concurrent handshakes, usually the executor's size
+     * @param adaptive whether the limit should be adjusted at runtime
+     */
+    public AdaptiveConcurrencyController(int initialLimit, int maxLimit, boolean adaptive) {
+        this.minLimit = 1;
+        this.maxLimit = Math.max(maxLimit, 1);
+        this.adaptive = adaptive;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, this.maxLimit));
+        this.peakLimit = getCurrentLimit();
+    }
+
+    /**
+     * Runs the submission immediately if the current limit permits it. Otherwise, it is queued
+     * and run once a running handshake completes. Each submission must be followed by exactly one
+     * call to {@link #onCompletion(long, boolean)}.
+     *
+     * @param submission hands a task to the executor
+     */
+    public void submit(Runnable submission) {
+        boolean admitted;
+        lock.lock();
+        try {
+            admitted = pendingSubmissions.isEmpty() && inFlight < getCurrentLimit();
+            if (admitted) {
+                inFlight++;
+            } else {
+                pendingSubmissions.add(submission);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (admitted) {
+            submission.run();
+        }
+    }
+
+    /**
+     * Reports the completion of a handshake and admits queued submissions if possible.
+     *
+     * @param latencyMillis time the handshake took
+     * @param congested whether the outcome indicates that the SUT is overloaded
+     */
+    public void onCompletion(long latencyMillis, boolean congested) {
+        List<Runnable> admitted = new LinkedList<>();
+        lock.lock();
+        try {
+            inFlight--;
+            completions++;
+            if (congested) {
+                congestedCompletions++;
+            }
+            if (adaptive) {
+                adapt(latencyMillis, congested);
+            }
+            while (!pendingSubmissions.isEmpty() && inFlight < getCurrentLimit()) {
+                inFlight++;
+                admitted.add(pendingSubmissions.poll());
+            }
+        } finally {
+            lock.unlock();
+        }
+        admitted.forEach(Runnable::run);
+    }
+
+    private void adapt(long latencyMillis, boolean congested) {
+        completionsSinceDecrease++;
+        boolean latencyDegraded = false;
+        if (!congested) {
+            if (shortTermLatency < 0) {
+                shortTermLatency = latencyMillis;
+                longTermLatency = latencyMillis;
+            } else {
+                shortTermLatency += SHORT_TERM_SMOOTHING * (latencyMillis - shortTermLatency);
+                longTermLatency += LONG_TERM_SMOOTHING * (latencyMillis - longTermLatency);
+            }
+            latencyDegraded =
+                    shortTermLatency > LATENCY_TOLERANCE * Math.max(longTermLatency, 1);
+        }
+
+        if (congested || latencyDegraded) {
+            // handshakes that were already in flight when the limit was cut report the same
+            // congestion, so the limit is decreased at most once per window
+            if (completionsSinceDecrease >= limit) {
+                limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+                completionsSinceDecrease = 0;
+                decreases++;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+            peakLimit = Math.max(peakLimit, getCurrentLimit());
+        }
+    }
+
+    public int getCurrentLimit() {
+        return (int) limit;
+    }
+
+    public int getPeakLimit() {
+        lock.lock();
+        try {
+            return peakLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return pendingSubmissions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return the controller's state for the run summary
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            statistics.put("Adaptive", adaptive);
+            statistics.put("CurrentLimit", getCurrentLimit());
+            statistics.put("PeakLimit", peakLimit);
+            statistics.put("MaxLimit", maxLimit);
+            statistics.put("Completions", completions);
+            statistics.put("CongestedCompletions", congestedCompletions);
+            statistics.put("LimitDecreases", decreases);
+        } finally {
+            lock.unlock();
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Waits for the client under test to connect before the feature extraction. The client is
+ * triggered periodically by a single scheduled thread until it connected, the deadline expired or
+ * the run was aborted. A new trigger is only issued once the processes started by the previous
+ * trigger terminated, hence slow clients do not pile up. Processes that are still running a while
+ * after the last trigger are considered hung and no longer hold back further triggers.
+ */
+public class ClientReadinessMonitor implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    static final long TRIGGER_INTERVAL_MILLIS = 1000;
+    static final long STALLED_TRIGGER_MILLIS = 10 * TRIGGER_INTERVAL_MILLIS;
+    // granularity of checking whether the run was aborted while waiting
+    private static final long POLL_MILLIS = 1000;
+    private static final int MAX_DATAGRAM_LENGTH = 16384;
+
+    private final Callable<Integer> trigger;
+    private final IntSupplier runningTriggers;
+    private final ScheduledExecutorService scheduler;
+    private final long stalledTriggerMillis;
+    // only accessed by the scheduler's thread
+    private long lastTriggerMillis;
+
+    /**
+     * @param trigger triggers the client to connect
+     * @param runningTriggers returns the number of processes started by previous triggers that
+     *     are still running
+     * @param threadFactory creates the thread issuing the triggers
+     */
+    public ClientReadinessMonitor(
+            Callable<Integer> trigger, IntSupplier runningTriggers, ThreadFactory threadFactory) {
+        this(trigger, runningTriggers, threadFactory, STALLED_TRIGGER_MILLIS);
+    }
+
+    ClientReadinessMonitor(
+            Callable<Integer> trigger,
+            IntSupplier runningTriggers,
+            ThreadFactory threadFactory,
+            long stalledTriggerMillis) {
+        this.trigger = trigger;
+        this.runningTriggers = runningTriggers;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.stalledTriggerMillis = stalledTriggerMillis;
+    }
+
+    /** Starts triggering the client periodically until the monitor is closed. */
+    public void startTriggering() {
+        scheduler.scheduleWithFixedDelay(
+                this::triggerClient, 0, TRIGGER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void triggerClient() {
+        if (runningTriggers.getAsInt() > 0) {
+            // e.g. a trigger script that never terminates without a trigger script timeout
+            if (System.currentTimeMillis() - lastTriggerMillis < stalledTriggerMillis) {
+                LOGGER.debug("Previously triggered client is still running");
+                return;
+            }
+            LOGGER.debug("Previously triggered client seems to hang, triggering it again");
+        }
+        LOGGER.info("Waiting for the client to get ready...");
+        lastTriggerMillis = System.currentTimeMillis();
+        // exceptions must not escape, they would cancel all further triggers
+        try {
+            int result = trigger.call();
+            if (result != 0) {
+                LOGGER.debug("Trigger script returned {}", result);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to trigger the client ({})", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Waits for a TCP connection of the client. The accepted connection is closed immediately.
+     *
+     * @param serverSocket the socket the client connects to
+     * @param timeoutMillis time to wait for the client, waits indefinitely if not positive
+     * @param aborted returns whether waiting should be stopped
+     * @return whether the client connected
+     * @throws IOException if the socket failed
+     */
+    public boolean awaitConnection(
+            ServerSocket serverSocket, long timeoutMillis, BooleanSupplier aborted)
+            throws IOException {
+        long deadline = getDeadline(timeoutMillis);
+        int previousTimeout = serverSocket.getSoTimeout();
+        try {
+            while (!aborted.getAsBoolean()) {
+                long remainingMillis = deadline - System.currentTimeMillis();
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                serverSocket.setSoTimeout((int) Math.min(remainingMillis, POLL_MILLIS));
+                try (Socket socket = serverSocket.accept()) {
+                    return true;
+                } catch (SocketTimeoutException ignored) {
+                    // check the deadline and abort flag again
+                }
+            }
+            return false;
+        } finally {
+            serverSocket.setSoTimeout(previousTimeout);
+        }
+    }
+
+    /**
+     * Waits for a non-empty datagram of the client on the given port. The port is released
+     * before returning.
+     *
+     * @param port the port the client sends to
+     * @param timeoutMillis time to wait for the client, waits indefinitely if not positive
+     * @param aborted returns whether waiting should be stopped
+     * @return whether the client sent a datagram
+     * @throws IOException if the port could not be bound
+     */
+    public boolean awaitDatagram(int port, long timeoutMillis, BooleanSupplier aborted)
+            throws IOException {
+        long deadline = getDeadline(timeoutMillis);
+        try (Selector selector = Selector.open();
+                DatagramChannel channel = DatagramChannel.open()) {
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+            ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_LENGTH);
+            while (!aborted.getAsBoolean()) {
+                long remainingMillis = deadline - System.currentTimeMillis();
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                selector.selectedKeys().clear();
+                selector.select(Math.min(remainingMillis, POLL_MILLIS));
+                buffer.clear();
+                if (channel.receive(buffer) != null && buffer.position() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static long getDeadline(long timeoutMillis) {
+        return timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+    }
+
+    /** Stops triggering the client. */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import de.rub.nds.tlsattacker.core.state.State;
+import de.rub.nds.tlsattacker.core.workflow.task.ITask;
+import de.rub.nds.tlsattacker.core.workflow.task.StateExecutionTask;
+import de.rub.nds.tlstest.framework.execution.ReexecutionPolicy.FailureClass;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A StateExecutionTask that completes a CompletableFuture once the ParallelExecutor has finished
+ * running it. This allows callers to react to the end of a handshake without blocking a thread
+ * on the Future returned by the executor.
+ *
+ * <p>If a ReexecutionPolicy is set, the task is reexecuted by resubmitting it once the policy
+ * permits it instead of relying on the fixed number of reexecutions of the executor.
+ */
+public class CompletableStateExecutionTask extends StateExecutionTask {
+
+    private final CompletableFuture<CompletableStateExecutionTask> completion =
+            new CompletableFuture<>();
+    // executions of the task never overlap, so the sum is not updated concurrently
+    private volatile long executionNanos = 0;
+    private volatile long lastExecutionNanos = 0;
+    private volatile int reexecutionCount = 0;
+
+    private ReexecutionPolicy reexecutionPolicy;
+    private Consumer<CompletableStateExecutionTask> reexecutionPreparation;
+    private Consumer<CompletableStateExecutionTask> resubmission;
+    private Consumer<CompletableStateExecutionTask> executionListener;
+    private final Map<FailureClass, Integer> reexecutionsPerClass =
+            Collections.synchronizedMap(new EnumMap<>(FailureClass.class));
+
+    public CompletableStateExecutionTask(State state, int reexecutions) {
+        super(state, reexecutions);
+    }
+
+    /**
+     * Lets the given policy decide about reexecutions. The task should then be created with zero
+     * reexecutions.
+     *
+     * @param reexecutionPolicy decides whether the task is executed again
+     * @param reexecutionPreparation resets the task before it is executed again
+     * @param resubmission hands the task to the executor again
+     */
+    public void setReexecutionPolicy(
+            ReexecutionPolicy reexecutionPolicy,
+            Consumer<CompletableStateExecutionTask> reexecutionPreparation,
+            Consumer<CompletableStateExecutionTask> resubmission) {
+        this.reexecutionPolicy = reexecutionPolicy;
+        this.reexecutionPreparation = reexecutionPreparation;
+        this.resubmission = resubmission;
+    }
+
+    /**
+     * @param executionListener notified after each execution of the task, including executions
+     *     that are followed by a reexecution
+     */
+    public void setExecutionListener(Consumer<CompletableStateExecutionTask> executionListener) {
+        this.executionListener = executionListener;
+    }
+
+    @Override
+    public ITask call() {
+        long startNanos = System.nanoTime();
+        ITask result;
+        try {
+            result = super.call();
+        } catch (RuntimeException | Error e) {
+            onExecuted(startNanos);
+            completion.completeExceptionally(e);
+            throw e;
+        }
+        onExecuted(startNanos);
+        if (reexecutionPolicy != null && scheduleReexecution()) {
+            return result;
+        }
+        completion.complete(this);
+        return result;
+    }
+
+    private void onExecuted(long startNanos) {
+        lastExecutionNanos = System.nanoTime() - startNanos;
+        executionNanos += lastExecutionNanos;
+        if (executionListener != null) {
+            executionListener.accept(this);
+        }
+    }
+
+    private boolean scheduleReexecution() {
+        FailureClass failureClass = ReexecutionPolicy.classify(getState());
+        if (!reexecutionPolicy.shouldReexecute(failureClass, reexecutionCount)) {
+            return false;
+        }
+        reexecutionsPerClass.merge(failureClass, 1, Integer::sum);
+        int previousReexecutions = reexecutionCount;
+        reexecutionPreparation.accept(this);
+        reexecutionPolicy.schedule(
+                () -> {
+                    try {
+                        resubmission.accept(this);
+                    } catch (RuntimeException e) {
+                        completion.completeExceptionally(e);
+                    }
+                },
+                previousReexecutions);
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        // the task is reset before each reexecution
+        reexecutionCount++;
+        super.reset();
+    }
+
+    /**
+     * @return whether the last execution indicates that the SUT could not keep up, i.e. the
+     *     connection failed or the transport handler raised an exception
+     */
+    public boolean indicatesCongestion() {
+        State state = getState();
+        return state.getExecutionException() != null
+                || state.getTlsContext().isReceivedTransportHandlerException();
+    }
+
+    /**
+     * @return time in milliseconds the last execution of the task took
+     */
+    public long getLastExecutionMillis() {
+        return lastExecutionNanos / 1_000_000;
+    }
+
+    /**
+     * @return time in milliseconds the task spent executing, summed over all executions and
+     *     excluding the backoff and queueing before reexecutions
+     */
+    public long getExecutionMillis() {
+        return getExecutionNanos() / 1_000_000;
+    }
+
+    /**
+     * @return time in nanoseconds the task spent executing, summed over all executions and
+     *     excluding the backoff and queueing before reexecutions
+     */
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    public int getReexecutionCount() {
+        return reexecutionCount;
+    }
+
+    /**
+     * @return the number of reexecutions caused by each class of failure
+     */
+    public Map<FailureClass, Integer> getReexecutionsPerClass() {
+        Map<FailureClass, Integer> reexecutions = new EnumMap<>(FailureClass.class);
+        synchronized (reexecutionsPerClass) {
+            reexecutions.putAll(reexecutionsPerClass);
+        }
+        return reexecutions;
+    }
+
+    /**
+     * @return a future that is completed with this task once it has been executed
+     */
+    public CompletableFuture<CompletableStateExecutionTask> getCompletion() {
+        return completion;
+    }
+}
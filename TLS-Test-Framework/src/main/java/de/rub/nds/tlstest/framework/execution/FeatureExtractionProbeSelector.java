@@ -0,0 +1,275 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
+import de.rub.nds.tlsscanner.core.constants.TlsProbeType;
+import de.rub.nds.tlstest.framework.ClientFeatureExtractionResult;
+import de.rub.nds.tlstest.framework.FeatureExtractionResult;
+import de.rub.nds.tlstest.framework.ServerFeatureExtractionResult;
+import de.rub.nds.tlstest.framework.anvil.TlsParameterIdentifierProvider;
+import de.rub.nds.tlstest.framework.model.TlsParameterType;
+import de.rub.nds.tlstest.framework.utils.ClassConstantPool;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+/**
+ * Selects the feature extraction probes required by the scheduled tests. Probes whose results are
+ * only consumed by some tests declare the TlsAnalyzedProperties and FeatureExtractionResult
+ * getters they feed. All other probes provide results the framework requires for every test,
+ * such as the supported cipher suites, and are always executed.
+ *
+ * <p>The features read by the tests are determined from the constant pools of the test classes,
+ * the classes they refer to and the classes that read the FeatureExtractionResult on behalf of
+ * all tests, such as the derivation parameters. A test declares the features it reads by
+ * accessing the TlsAnalyzedProperty constant or calling the FeatureExtractionResult getter in its
+ * code. If a class reads results in a way that does not name the property, i.e. it accesses the
+ * whole result map, looks properties up by name or ordinal, or calls getResult without accessing
+ * any property constant, the read features cannot be determined and all probes are executed.
+ */
+public class FeatureExtractionProbeSelector {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    static final Map<TlsProbeType, Set<String>> OPTIONAL_PROBE_FEATURES =
+            Map.of(
+                    TlsProbeType.HTTP_HEADER,
+                    Set.of(
+                            "SUPPORTS_HSTS",
+                            "SUPPORTS_HSTS_PRELOADING",
+                            "SUPPORTS_HPKP",
+                            "SUPPORTS_HPKP_REPORTING",
+                            "SUPPORTS_HTTP_COMPRESSION",
+                            "SUPPORTS_HTTPS"),
+                    TlsProbeType.HELLO_RETRY,
+                    Set.of("SENDS_HELLO_RETRY_REQUEST", "ISSUES_COOKIE_IN_HELLO_RETRY"),
+                    TlsProbeType.RESUMPTION,
+                    Set.of(
+                            "SUPPORTS_SESSION_ID_RESUMPTION",
+                            "SUPPORTS_SESSION_TICKET_RESUMPTION",
+                            "SUPPORTS_TLS13_PSK",
+                            "SUPPORTS_TLS13_PSK_DHE",
+                            "SUPPORTS_TLS13_0_RTT",
+                            "ISSUES_TLS13_SESSION_TICKETS_AFTER_HANDSHAKE"),
+                    TlsProbeType.COMMON_BUGS,
+                    Set.of(
+                            "HAS_GREASE_CIPHER_SUITE_INTOLERANCE",
+                            "HAS_GREASE_NAMED_GROUP_INTOLERANCE",
+                            "HAS_GREASE_SIGNATURE_AND_HASH_ALGORITHM_INTOLERANCE"),
+                    TlsProbeType.CONNECTION_CLOSING_DELTA,
+                    Set.of("getClosedAfterAppDataDelta", "getClosedAfterFinishedDelta"),
+                    TlsProbeType.RECORD_FRAGMENTATION,
+                    Set.of("SUPPORTS_RECORD_FRAGMENTATION"),
+                    TlsProbeType.DTLS_FRAGMENTATION,
+                    Set.of("SUPPORTS_DTLS_FRAGMENTATION"),
+                    TlsProbeType.APPLICATION_MESSAGE,
+                    Set.of("SENDS_APPLICATION_MESSAGE"),
+                    TlsProbeType.SERVER_CERTIFICATE_MINIMUM_KEY_SIZE,
+                    Set.of(
+                            "ENFORCES_SERVER_CERT_MIN_KEY_SIZE_RSA",
+                            "ENFORCES_SERVER_CERT_MIN_KEY_SIZE_RSA_SIG",
+                            "ENFORCES_SERVER_CERT_MIN_KEY_SIZE_DSS"));
+
+    // classes that read the FeatureExtractionResult for every test
+    private static final List<String> FRAMEWORK_READERS =
+            List.of(
+                    TlsParameterIdentifierProvider.class.getName(),
+                    TlsParameterType.class.getName());
+
+    private static final String PROPERTY_CLASS = getInternalName(TlsAnalyzedProperty.class);
+    private static final Set<String> RESULT_CLASSES =
+            Set.of(
+                    getInternalName(FeatureExtractionResult.class),
+                    getInternalName(ServerFeatureExtractionResult.class),
+                    getInternalName(ClientFeatureExtractionResult.class));
+
+    private static final String TEST_PACKAGES = "de/rub/nds/tlstest/";
+    private static final Pattern CLASS_REFERENCE = Pattern.compile(TEST_PACKAGES + "[\\w/$]+");
+    // infrastructure that handles the FeatureExtractionResult as a whole
+    private static final List<String> EXCLUDED_PACKAGES =
+            List.of(
+                    "de/rub/nds/tlstest/framework/cache/",
+                    "de/rub/nds/tlstest/framework/config/",
+                    "de/rub/nds/tlstest/framework/execution/",
+                    "de/rub/nds/tlstest/framework/statistics/");
+
+    private final ClassLoader classLoader;
+
+    public FeatureExtractionProbeSelector(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @param testPlan the discovered tests
+     * @return the names of all classes containing tests of the test plan
+     */
+    public static Set<String> getTestClassNames(TestPlan testPlan) {
+        Set<String> classNames = new HashSet<>();
+        for (TestIdentifier root : testPlan.getRoots()) {
+            for (TestIdentifier identifier : testPlan.getDescendants(root)) {
+                TestSource source = identifier.getSource().orElse(null);
+                if (source instanceof MethodSource) {
+                    classNames.add(((MethodSource) source).getClassName());
+                } else if (source instanceof ClassSource) {
+                    classNames.add(((ClassSource) source).getClassName());
+                }
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * Removes the optional probes whose features are not read by the given test classes.
+     *
+     * @param probes the probes of the feature extraction
+     * @param testClassNames names of the classes containing the scheduled tests
+     * @return the required probes in the order of the given probes
+     */
+    public List<TlsProbeType> selectProbes(
+            List<TlsProbeType> probes, Collection<String> testClassNames) {
+        Set<String> readFeatures = collectReadFeatures(testClassNames);
+        if (readFeatures == null) {
+            return probes;
+        }
+        List<TlsProbeType> selectedProbes =
+                probes.stream()
+                        .filter(
+                                probe ->
+                                        !OPTIONAL_PROBE_FEATURES.containsKey(probe)
+                                                || OPTIONAL_PROBE_FEATURES.get(probe).stream()
+                                                        .anyMatch(readFeatures::contains))
+                        .collect(Collectors.toList());
+        if (selectedProbes.size() < probes.size()) {
+            LOGGER.info(
+                    "Skipping probes not required by the scheduled tests: {}",
+                    probes.stream()
+                            .filter(probe -> !selectedProbes.contains(probe))
+                            .collect(Collectors.toList()));
+        }
+        return selectedProbes;
+    }
+
+    /**
+     * @param testClassNames names of the classes containing the scheduled tests
+     * @return the declared features read by the classes or null if a test class could not be read
+     *     or a class reads results indirectly
+     */
+    Set<String> collectReadFeatures(Collection<String> testClassNames) {
+        Set<String> declaredFeatures = new HashSet<>();
+        OPTIONAL_PROBE_FEATURES.values().forEach(declaredFeatures::addAll);
+
+        Set<String> readFeatures = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        Set<String> roots = new HashSet<>();
+        testClassNames.forEach(name -> roots.add(name.replace('.', '/')));
+        FRAMEWORK_READERS.forEach(name -> roots.add(name.replace('.', '/')));
+        Deque<String> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            String internalName = pending.poll();
+            if (!visited.add(internalName)) {
+                continue;
+            }
+            ClassConstantPool constantPool;
+            try (InputStream classFile =
+                    classLoader.getResourceAsStream(internalName + ".class")) {
+                if (classFile == null) {
+                    throw new IOException("Class file not found");
+                }
+                constantPool = ClassConstantPool.read(classFile);
+            } catch (IOException e) {
+                if (roots.contains(internalName)) {
+                    LOGGER.warn(
+                            "Failed to read {}, executing all probes ({})",
+                            internalName,
+                            e.getMessage());
+                    return null;
+                }
+                // matches of the pattern that do not denote a class
+                LOGGER.debug("Failed to read {} ({})", internalName, e.getMessage());
+                continue;
+            }
+            if (readsResultsIndirectly(constantPool.getMemberReferences())) {
+                LOGGER.info(
+                        "{} reads feature extraction results indirectly, executing all probes",
+                        internalName);
+                return null;
+            }
+            for (String reference : constantPool.getMemberReferences()) {
+                String owner = reference.substring(0, reference.lastIndexOf('.'));
+                String member = reference.substring(reference.lastIndexOf('.') + 1);
+                if ((owner.equals(PROPERTY_CLASS) || RESULT_CLASSES.contains(owner))
+                        && declaredFeatures.contains(member)) {
+                    readFeatures.add(member);
+                }
+            }
+            for (String constant : constantPool.getUtf8Constants()) {
+                Matcher matcher = CLASS_REFERENCE.matcher(constant);
+                while (matcher.find()) {
+                    String reference = matcher.group();
+                    if (!visited.contains(reference) && isFollowed(reference)) {
+                        pending.add(reference);
+                    }
+                }
+            }
+        }
+        LOGGER.debug("Scheduled tests read {} from {} classes", readFeatures, visited.size());
+        return readFeatures;
+    }
+
+    private static boolean readsResultsIndirectly(Set<String> memberReferences) {
+        boolean callsGetResult = false;
+        boolean accessesProperty = false;
+        for (String reference : memberReferences) {
+            String owner = reference.substring(0, reference.lastIndexOf('.'));
+            String member = reference.substring(reference.lastIndexOf('.') + 1);
+            if (RESULT_CLASSES.contains(owner)) {
+                if (member.equals("getResultMap")) {
+                    return true;
+                }
+                callsGetResult |= member.equals("getResult");
+            } else if (owner.equals(PROPERTY_CLASS)) {
+                if (member.equals("valueOf") || member.equals("values")) {
+                    return true;
+                }
+                accessesProperty = true;
+            }
+        }
+        // the property is passed in by a class that is not inspected
+        return callsGetResult && !accessesProperty;
+    }
+
+    private static String getInternalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+
+    private static boolean isFollowed(String internalName) {
+        // top level classes of the framework such as the TestContext and the
+        // FeatureExtractionResult itself
+        if (internalName.lastIndexOf('/') == "de/rub/nds/tlstest/framework".length()
+                && internalName.startsWith("de/rub/nds/tlstest/framework/")) {
+            return false;
+        }
+        return EXCLUDED_PACKAGES.stream().noneMatch(internalName::startsWith);
+    }
+}
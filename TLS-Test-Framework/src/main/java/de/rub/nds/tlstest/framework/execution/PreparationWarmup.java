@@ -0,0 +1,130 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import de.rub.nds.tlsattacker.core.certificate.CertificateByteChooser;
+import de.rub.nds.tlstest.framework.config.TlsTestConfig;
+import de.rub.nds.tlstest.framework.constants.KeyX;
+import de.rub.nds.tlstest.framework.model.TlsParameterType;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs the preparation work that does not depend on the SUT while the TestPreparator waits for
+ * the SUT and runs the feature extraction. This covers loading the certificate key pairs,
+ * building the ServerKeyExchange messages used to resolve KeyExchange annotations and
+ * initializing the derivation parameters, which would otherwise delay the first tests.
+ *
+ * <p>All warmed up state is also created lazily on first use, hence failing tasks are only
+ * logged.
+ */
+public class PreparationWarmup implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final ExecutorService executor;
+    private final List<CompletableFuture<?>> tasks = new LinkedList<>();
+
+    public PreparationWarmup(ThreadFactory threadFactory) {
+        this.executor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Submits the tasks that prepare state used by all tests independently of the SUT.
+     *
+     * @param testConfig the config of the run
+     */
+    public void submitSutIndependentTasks(TlsTestConfig testConfig) {
+        submit(
+                "certificate key pairs",
+                () -> CertificateByteChooser.getInstance().getCertificateKeyPairList());
+        submit(
+                "key exchange cache",
+                () -> {
+                    KeyX.initializeCache();
+                    return null;
+                });
+        submit(
+                "derivation parameters",
+                () -> {
+                    for (TlsParameterType parameterType : TlsParameterType.values()) {
+                        initializeClass(parameterType.getDerivationClass());
+                    }
+                    return null;
+                });
+        if (testConfig.isCacheWorkflowTraces()) {
+            submit("workflow trace cache", WorkflowTraceTemplateCache::getInstance);
+        }
+    }
+
+    private static void initializeClass(Class<?> type) {
+        try {
+            Class.forName(type.getName(), true, type.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs the given task concurrently.
+     *
+     * @param name describes the task in log messages
+     * @param task the task to run
+     * @param <T> type of the task's result
+     * @return a future completed with the result of the task
+     */
+    public <T> CompletableFuture<T> submit(String name, Supplier<T> task) {
+        CompletableFuture<T> future =
+                CompletableFuture.supplyAsync(
+                        () -> {
+                            long start = System.nanoTime();
+                            T result = task.get();
+                            LOGGER.debug(
+                                    "Prepared {} in {} ms",
+                                    name,
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                            return result;
+                        },
+                        executor);
+        synchronized (tasks) {
+            tasks.add(
+                    future.whenComplete(
+                            (result, exception) -> {
+                                if (exception != null) {
+                                    LOGGER.warn("Failed to prepare {} in advance", name, exception);
+                                }
+                            }));
+        }
+        return future;
+    }
+
+    /** Waits until all submitted tasks completed. */
+    public void awaitCompletion() {
+        CompletableFuture<?>[] pending;
+        synchronized (tasks) {
+            pending = tasks.toArray(new CompletableFuture<?>[0]);
+        }
+        try {
+            CompletableFuture.allOf(pending).join();
+        } catch (RuntimeException ignored) {
+            // failures have already been logged
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
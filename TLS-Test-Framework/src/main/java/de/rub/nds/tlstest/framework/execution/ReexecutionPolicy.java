@@ -0,0 +1,232 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import de.rub.nds.tlsattacker.core.state.State;
+import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
+import de.rub.nds.tlsattacker.core.workflow.action.ReceivingAction;
+import de.rub.nds.tlsattacker.core.workflow.action.SendingAction;
+import de.rub.nds.tlsattacker.transport.socket.SocketState;
+import de.rub.nds.tlstest.framework.utils.ThreadFactories;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.PortUnreachableException;
+import java.net.SocketTimeoutException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether an executed handshake is executed again. Only failures of the transport layer
+ * that occurred before any message was exchanged are considered transient, e.g. a refused
+ * connection while the SUT restarts. All other outcomes, such as alerts, connections closed or
+ * reset in reaction to our messages or missing messages, are deterministic for a given
+ * WorkflowTrace and hence never reexecuted.
+ *
+ * <p>Reexecutions are delayed by an exponential backoff with full jitter to avoid that all
+ * parallel handshakes hit a recovering SUT at the same time.
+ */
+public class ReexecutionPolicy {
+
+    public enum FailureClass {
+        /** the handshake was executed without exceptions */
+        NONE,
+        /** the connection could not be established or broke down before any message was received */
+        TRANSIENT_TRANSPORT,
+        /** the execution failed in a way that will not change upon reexecution */
+        DETERMINISTIC
+    }
+
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final int maxReexecutions;
+    private final long baseBackoffMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<FailureClass, AtomicLong> reexecutions = new EnumMap<>(FailureClass.class);
+    private final Map<FailureClass, AtomicLong> finalFailures = new EnumMap<>(FailureClass.class);
+
+    /**
+     * @param maxReexecutions upper bound of reexecutions per handshake
+     * @param baseBackoffMillis delay bound of the first reexecution, doubled for each further
+     *     reexecution
+     */
+    public ReexecutionPolicy(int maxReexecutions, long baseBackoffMillis) {
+        this(
+                maxReexecutions,
+                baseBackoffMillis,
+                ThreadFactories.createDaemon("ReexecutionScheduler-", false));
+    }
+
+    /**
+     * @param maxReexecutions upper bound of reexecutions per handshake
+     * @param baseBackoffMillis delay bound of the first reexecution, doubled for each further
+     *     reexecution
+     * @param threadFactory creates the thread that submits delayed reexecutions
+     */
+    public ReexecutionPolicy(
+            int maxReexecutions, long baseBackoffMillis, ThreadFactory threadFactory) {
+        this.maxReexecutions = Math.max(maxReexecutions, 0);
+        this.baseBackoffMillis = Math.max(baseBackoffMillis, 0);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        for (FailureClass failureClass : FailureClass.values()) {
+            reexecutions.put(failureClass, new AtomicLong());
+            finalFailures.put(failureClass, new AtomicLong());
+        }
+    }
+
+    /**
+     * @param state the executed state
+     * @return the class of the execution's outcome
+     */
+    public static FailureClass classify(State state) {
+        return classify(
+                state.getExecutionException(),
+                state.getTlsContext().isReceivedTransportHandlerException(),
+                receivedAnyMessage(state.getWorkflowTrace()),
+                sentAnyMessage(state.getWorkflowTrace()),
+                state.getTcpContext() == null
+                        ? null
+                        : state.getTcpContext().getFinalSocketState());
+    }
+
+    static FailureClass classify(
+            Throwable executionException,
+            boolean transportException,
+            boolean receivedMessage,
+            boolean sentMessage,
+            SocketState socketState) {
+        if (executionException == null && !transportException) {
+            return FailureClass.NONE;
+        }
+        if (receivedMessage) {
+            // the peer reacted to our messages, a reexecution would lead to the same reaction
+            return FailureClass.DETERMINISTIC;
+        }
+        if (sentMessage
+                && (socketState == SocketState.CLOSED
+                        || socketState == SocketState.SOCKET_EXCEPTION)) {
+            // the peer closed or reset the connection in reaction to our messages
+            return FailureClass.DETERMINISTIC;
+        }
+        if (executionException == null || isTransientTransportException(executionException)) {
+            return FailureClass.TRANSIENT_TRANSPORT;
+        }
+        return FailureClass.DETERMINISTIC;
+    }
+
+    /**
+     * @param failureClass class of the latest outcome
+     * @param previousReexecutions number of reexecutions of the handshake so far
+     * @return whether the handshake should be executed again
+     */
+    public boolean shouldReexecute(FailureClass failureClass, int previousReexecutions) {
+        boolean reexecute =
+                failureClass == FailureClass.TRANSIENT_TRANSPORT
+                        && previousReexecutions < maxReexecutions;
+        if (reexecute) {
+            reexecutions.get(failureClass).incrementAndGet();
+        } else if (failureClass != FailureClass.NONE) {
+            finalFailures.get(failureClass).incrementAndGet();
+        }
+        return reexecute;
+    }
+
+    /**
+     * Runs the reexecution after a jittered, exponentially growing delay.
+     *
+     * @param reexecution submits the handshake again
+     * @param previousReexecutions number of reexecutions of the handshake so far
+     */
+    public void schedule(Runnable reexecution, int previousReexecutions) {
+        scheduler.schedule(
+                reexecution, getBackoffMillis(previousReexecutions), TimeUnit.MILLISECONDS);
+    }
+
+    long getBackoffMillis(int previousReexecutions) {
+        long bound =
+                Math.min(
+                        MAX_BACKOFF_MILLIS,
+                        baseBackoffMillis << Math.min(previousReexecutions, 16));
+        if (bound <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    public int getMaxReexecutions() {
+        return maxReexecutions;
+    }
+
+    /**
+     * @return the number of reexecutions and of failures that were not reexecuted per class
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        Map<String, Long> reexecuted = new LinkedHashMap<>();
+        Map<String, Long> notReexecuted = new LinkedHashMap<>();
+        for (FailureClass failureClass : FailureClass.values()) {
+            if (failureClass == FailureClass.NONE) {
+                continue;
+            }
+            reexecuted.put(failureClass.name(), reexecutions.get(failureClass).get());
+            notReexecuted.put(failureClass.name(), finalFailures.get(failureClass).get());
+        }
+        statistics.put("MaxReexecutions", maxReexecutions);
+        statistics.put("Reexecuted", reexecuted);
+        statistics.put("NotReexecuted", notReexecuted);
+        return statistics;
+    }
+
+    private static boolean receivedAnyMessage(WorkflowTrace trace) {
+        if (trace == null) {
+            return false;
+        }
+        for (ReceivingAction action : trace.getReceivingActions()) {
+            if (action.getReceivedMessages() != null && !action.getReceivedMessages().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sentAnyMessage(WorkflowTrace trace) {
+        if (trace == null) {
+            return false;
+        }
+        for (SendingAction action : trace.getSendingActions()) {
+            if (action.getSendMessages() != null && !action.getSendMessages().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransientTransportException(Throwable exception) {
+        Throwable cause = exception;
+        // guard against cyclic causes
+        for (int depth = 0; cause != null && depth < 16; depth++) {
+            if (cause instanceof ConnectException
+                    || cause instanceof NoRouteToHostException
+                    || cause instanceof PortUnreachableException
+                    || cause instanceof BindException
+                    || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+}
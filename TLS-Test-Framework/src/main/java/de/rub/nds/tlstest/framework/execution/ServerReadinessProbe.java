@@ -0,0 +1,342 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Determines whether the server under test is ready to be tested. A server is considered ready
+ * once it answers a minimal ClientHello with a TLS record, i.e. with a ServerHello,
+ * HelloRetryRequest, HelloVerifyRequest or an alert. An open port alone is not sufficient since
+ * many servers accept connections before their TLS stack is initialized.
+ *
+ * <p>Connections are established with non-blocking channels, hence each attempt is bounded by
+ * the attempt timeout. Failed attempts are repeated with exponential backoff.
+ */
+public class ServerReadinessProbe {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    static final long INITIAL_BACKOFF_MILLIS = 50;
+    static final long MAX_BACKOFF_MILLIS = 2000;
+    private static final int DEFAULT_ATTEMPT_TIMEOUT_MILLIS = 1000;
+
+    private static final byte CONTENT_TYPE_ALERT = 0x15;
+    private static final byte CONTENT_TYPE_HANDSHAKE = 0x16;
+    private static final byte HANDSHAKE_TYPE_CLIENT_HELLO = 0x01;
+    private static final int TLS_RECORD_HEADER_LENGTH = 5;
+    private static final int MAX_DATAGRAM_LENGTH = 16384;
+
+    // suites covering the key exchanges of common configurations, a server supporting none of
+    // them still answers with an alert
+    private static final int[] TLS13_CIPHER_SUITES = {0x1301, 0x1302, 0x1303};
+    private static final int[] CIPHER_SUITES = {
+        0xC02B, 0xC02F, 0xC02C, 0xC030, 0xCCA9, 0xCCA8, 0xC009, 0xC013, 0xC00A, 0xC014, 0x009E,
+        0x009F, 0x0033, 0x0039, 0x009C, 0x009D, 0x002F, 0x0035, 0x000A
+    };
+    private static final int[] NAMED_GROUPS = {0x001D, 0x0017, 0x0018, 0x0019, 0x0100};
+    private static final int[] SIGNATURE_ALGORITHMS = {
+        0x0403, 0x0503, 0x0603, 0x0804, 0x0805, 0x0806, 0x0401, 0x0501, 0x0601, 0x0203, 0x0201
+    };
+
+    private final String host;
+    private final int port;
+    private final boolean dtls;
+    private final int attemptTimeoutMillis;
+    private final byte[] clientHello;
+
+    /**
+     * @param host hostname or IP address of the server
+     * @param port port of the server
+     * @param dtls whether the server uses DTLS
+     * @param attemptTimeoutMillis time each attempt may take until the server answered, a
+     *     default is used if not positive
+     */
+    public ServerReadinessProbe(String host, int port, boolean dtls, int attemptTimeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.dtls = dtls;
+        this.attemptTimeoutMillis =
+                attemptTimeoutMillis > 0 ? attemptTimeoutMillis : DEFAULT_ATTEMPT_TIMEOUT_MILLIS;
+        this.clientHello = createClientHello(isHostname(host) ? host : null, dtls);
+    }
+
+    /**
+     * Repeats the readiness check with exponential backoff until the server is ready, the
+     * timeout expired or the run was aborted.
+     *
+     * @param timeoutMillis time to wait for the server, waits indefinitely if not positive
+     * @param aborted returns whether waiting should be stopped
+     * @return whether the server is ready
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitReadiness(long timeoutMillis, BooleanSupplier aborted)
+            throws InterruptedException {
+        long deadline =
+                timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        boolean loggedWaiting = false;
+        while (!aborted.getAsBoolean()) {
+            if (isReady()) {
+                return true;
+            }
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (remainingMillis <= 0) {
+                return false;
+            }
+            if (!loggedWaiting) {
+                LOGGER.info("Waiting for the server at {}:{} to get ready...", host, port);
+                loggedWaiting = true;
+            }
+            Thread.sleep(Math.min(backoffMillis, remainingMillis));
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        }
+        return false;
+    }
+
+    /**
+     * Sends a ClientHello to the server once.
+     *
+     * @return whether the server answered with a TLS record within the attempt timeout
+     */
+    public boolean isReady() {
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (address.isUnresolved()) {
+            LOGGER.debug("Server not yet available (failed to resolve {})", host);
+            return false;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(attemptTimeoutMillis);
+        try {
+            ByteBuffer response =
+                    dtls ? exchangeDatagram(address, deadline) : exchange(address, deadline);
+            if (response == null) {
+                LOGGER.debug("Server not yet available (no response to ClientHello)");
+                return false;
+            }
+            return isTlsResponse(response, dtls);
+        } catch (IOException e) {
+            LOGGER.debug("Server not yet available ({})", e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    private ByteBuffer exchange(InetSocketAddress address, long deadline) throws IOException {
+        try (Selector selector = Selector.open();
+                SocketChannel channel = SocketChannel.open()) {
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, 0);
+            if (!channel.connect(address)) {
+                if (!await(selector, key, SelectionKey.OP_CONNECT, deadline)) {
+                    return null;
+                }
+                channel.finishConnect();
+            }
+
+            ByteBuffer request = ByteBuffer.wrap(clientHello);
+            while (request.hasRemaining()) {
+                if (channel.write(request) == 0
+                        && !await(selector, key, SelectionKey.OP_WRITE, deadline)) {
+                    return null;
+                }
+            }
+
+            // the content type and protocol version suffice to recognize a TLS record
+            ByteBuffer response = ByteBuffer.allocate(TLS_RECORD_HEADER_LENGTH);
+            while (response.position() < 3) {
+                int read = channel.read(response);
+                if (read < 0) {
+                    break;
+                } else if (read == 0 && !await(selector, key, SelectionKey.OP_READ, deadline)) {
+                    break;
+                }
+            }
+            return response.position() > 0 ? response.flip() : null;
+        }
+    }
+
+    private ByteBuffer exchangeDatagram(InetSocketAddress address, long deadline)
+            throws IOException {
+        try (Selector selector = Selector.open();
+                DatagramChannel channel = DatagramChannel.open()) {
+            channel.configureBlocking(false);
+            // a connected channel reports ICMP port unreachable messages as exceptions
+            channel.connect(address);
+            SelectionKey key = channel.register(selector, 0);
+            channel.write(ByteBuffer.wrap(clientHello));
+
+            ByteBuffer response = ByteBuffer.allocate(MAX_DATAGRAM_LENGTH);
+            while (channel.read(response) == 0) {
+                if (!await(selector, key, SelectionKey.OP_READ, deadline)) {
+                    return null;
+                }
+            }
+            return response.flip();
+        }
+    }
+
+    /**
+     * @return whether the channel of the key is ready for the given operation before the
+     *     deadline
+     */
+    private static boolean await(Selector selector, SelectionKey key, int operation, long deadline)
+            throws IOException {
+        key.interestOps(operation);
+        try {
+            while (true) {
+                long remainingMillis =
+                        TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                selector.selectedKeys().clear();
+                if (selector.select(remainingMillis) > 0 && (key.readyOps() & operation) != 0) {
+                    return true;
+                }
+            }
+        } finally {
+            if (key.isValid()) {
+                key.interestOps(0);
+            }
+        }
+    }
+
+    /**
+     * @param response the first bytes received from the server
+     * @param dtls whether the server uses DTLS
+     * @return whether the bytes start with a handshake or alert record
+     */
+    static boolean isTlsResponse(ByteBuffer response, boolean dtls) {
+        if (response.remaining() < 3) {
+            return false;
+        }
+        byte contentType = response.get(response.position());
+        byte majorVersion = response.get(response.position() + 1);
+        return (contentType == CONTENT_TYPE_HANDSHAKE || contentType == CONTENT_TYPE_ALERT)
+                && majorVersion == (dtls ? (byte) 0xFE : (byte) 0x03);
+    }
+
+    /**
+     * Creates a ClientHello offering TLS 1.2 and TLS 1.3 or DTLS 1.2 and common cipher suites,
+     * groups and signature algorithms. No key share is sent, hence a TLS 1.3 server answers with
+     * a HelloRetryRequest.
+     *
+     * @param serverName value of the server name indication extension, omitted if null
+     * @param dtls whether a DTLS ClientHello is created
+     * @return the ClientHello record
+     */
+    static byte[] createClientHello(String serverName, boolean dtls) {
+        ByteArrayOutputStream extensions = new ByteArrayOutputStream();
+        if (serverName != null) {
+            byte[] name = serverName.getBytes(StandardCharsets.US_ASCII);
+            ByteArrayOutputStream serverNameList = new ByteArrayOutputStream();
+            serverNameList.write(0);
+            writeVector(serverNameList, name, 2);
+            ByteArrayOutputStream extension = new ByteArrayOutputStream();
+            writeVector(extension, serverNameList.toByteArray(), 2);
+            writeExtension(extensions, 0x0000, extension.toByteArray());
+        }
+        writeExtension(extensions, 0x000A, vectorOf(NAMED_GROUPS));
+        writeExtension(extensions, 0x000B, new byte[] {1, 0});
+        writeExtension(extensions, 0x000D, vectorOf(SIGNATURE_ALGORITHMS));
+        if (!dtls) {
+            writeExtension(extensions, 0x002B, new byte[] {4, 0x03, 0x04, 0x03, 0x03});
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(dtls ? new byte[] {(byte) 0xFE, (byte) 0xFD} : new byte[] {0x03, 0x03});
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        body.writeBytes(random);
+        // empty session id
+        body.write(0);
+        if (dtls) {
+            // empty cookie
+            body.write(0);
+        }
+        ByteArrayOutputStream cipherSuites = new ByteArrayOutputStream();
+        if (!dtls) {
+            writeUint16s(cipherSuites, TLS13_CIPHER_SUITES);
+        }
+        writeUint16s(cipherSuites, CIPHER_SUITES);
+        writeVector(body, cipherSuites.toByteArray(), 2);
+        // null compression only
+        body.writeBytes(new byte[] {1, 0});
+        writeVector(body, extensions.toByteArray(), 2);
+
+        ByteArrayOutputStream handshake = new ByteArrayOutputStream();
+        handshake.write(HANDSHAKE_TYPE_CLIENT_HELLO);
+        writeUint(handshake, body.size(), 3);
+        if (dtls) {
+            // message sequence, fragment offset and fragment length of an unfragmented message
+            writeUint(handshake, 0, 2);
+            writeUint(handshake, 0, 3);
+            writeUint(handshake, body.size(), 3);
+        }
+        handshake.writeBytes(body.toByteArray());
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.write(CONTENT_TYPE_HANDSHAKE);
+        if (dtls) {
+            // DTLS 1.0 record version, epoch and sequence number
+            record.writeBytes(new byte[] {(byte) 0xFE, (byte) 0xFF});
+            writeUint(record, 0, 2);
+            writeUint(record, 0, 6);
+        } else {
+            record.writeBytes(new byte[] {0x03, 0x01});
+        }
+        writeVector(record, handshake.toByteArray(), 2);
+        return record.toByteArray();
+    }
+
+    private static boolean isHostname(String host) {
+        // server names must not be IP addresses
+        return host != null && !host.contains(":") && !host.matches("[0-9.]+");
+    }
+
+    private static byte[] vectorOf(int[] values) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        writeUint16s(content, values);
+        ByteArrayOutputStream vector = new ByteArrayOutputStream();
+        writeVector(vector, content.toByteArray(), 2);
+        return vector.toByteArray();
+    }
+
+    private static void writeExtension(ByteArrayOutputStream out, int type, byte[] content) {
+        writeUint(out, type, 2);
+        writeVector(out, content, 2);
+    }
+
+    private static void writeVector(ByteArrayOutputStream out, byte[] content, int lengthBytes) {
+        writeUint(out, content.length, lengthBytes);
+        out.writeBytes(content);
+    }
+
+    private static void writeUint16s(ByteArrayOutputStream out, int[] values) {
+        for (int value : values) {
+            writeUint(out, value, 2);
+        }
+    }
+
+    private static void writeUint(ByteArrayOutputStream out, long value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            out.write((int) (value >>> (8 * i)) & 0xFF);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Restarts the server under test after a configured number of handshakes without interfering
+ * with running handshakes. Once the number of handshakes is reached, no further handshakes are
+ * admitted and the coordinator waits until all running handshakes completed. The restart script
+ * is then executed and handshakes are admitted again once the server accepts connections.
+ *
+ * <p>Submissions are queued while a restart is pending, hence no thread is blocked.
+ */
+public class ServerRestartCoordinator {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final long READINESS_POLL_MILLIS = 250;
+    private static final long MAX_READINESS_POLL_MILLIS = 2000;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Runnable> pendingSubmissions = new ArrayDeque<>();
+
+    private final int restartAfter;
+    private final Callable<Integer> restartScript;
+    private final BooleanSupplier readinessProbe;
+    private final long readinessTimeoutMillis;
+    private final ThreadFactory threadFactory;
+
+    private int handshakesSinceRestart = 0;
+    private int inFlight = 0;
+    private boolean restartPending = false;
+    private boolean restartRunning = false;
+    private long restarts = 0;
+
+    /**
+     * @param restartAfter number of handshakes after which the server is restarted
+     * @param restartScript restarts the server
+     * @param readinessProbe returns whether the server accepts connections again
+     * @param readinessTimeoutMillis time to wait for the server to become ready before
+     *     handshakes are admitted regardless
+     * @param threadFactory creates the thread running a restart
+     */
+    public ServerRestartCoordinator(
+            int restartAfter,
+            Callable<Integer> restartScript,
+            BooleanSupplier readinessProbe,
+            long readinessTimeoutMillis,
+            ThreadFactory threadFactory) {
+        this.restartAfter = restartAfter;
+        this.restartScript = restartScript;
+        this.readinessProbe = readinessProbe;
+        this.readinessTimeoutMillis = readinessTimeoutMillis;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Runs the submission immediately unless a restart is pending. Each submission must be
+     * followed by exactly one call to {@link #onCompletion()}.
+     *
+     * @param submission hands a task to the executor
+     */
+    public void submit(Runnable submission) {
+        boolean admitted;
+        lock.lock();
+        try {
+            admitted = admit(submission);
+        } finally {
+            lock.unlock();
+        }
+        if (admitted) {
+            submission.run();
+        }
+    }
+
+    /** Reports the completion of a handshake and starts a pending restart once drained. */
+    public void onCompletion() {
+        boolean startRestart = false;
+        lock.lock();
+        try {
+            inFlight--;
+            if (restartPending && inFlight == 0 && !restartRunning) {
+                restartRunning = true;
+                startRestart = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (startRestart) {
+            threadFactory.newThread(this::restart).start();
+        }
+    }
+
+    private boolean admit(Runnable submission) {
+        if (restartPending) {
+            pendingSubmissions.add(submission);
+            return false;
+        }
+        inFlight++;
+        handshakesSinceRestart++;
+        if (restartAfter > 0 && handshakesSinceRestart >= restartAfter) {
+            // this handshake is the last one before the restart
+            restartPending = true;
+        }
+        return true;
+    }
+
+    void restart() {
+        LOGGER.info("Restarting server after {} handshakes", handshakesSinceRestart);
+        try {
+            int exitCode = restartScript.call();
+            if (exitCode != 0) {
+                LOGGER.warn("Server restart script returned {}", exitCode);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to restart server", e);
+        }
+        awaitReadiness();
+
+        List<Runnable> admitted = new LinkedList<>();
+        lock.lock();
+        try {
+            restarts++;
+            handshakesSinceRestart = 0;
+            restartPending = false;
+            restartRunning = false;
+            while (!pendingSubmissions.isEmpty() && !restartPending) {
+                Runnable submission = pendingSubmissions.poll();
+                admit(submission);
+                admitted.add(submission);
+            }
+        } finally {
+            lock.unlock();
+        }
+        admitted.forEach(Runnable::run);
+    }
+
+    private void awaitReadiness() {
+        long deadline = System.currentTimeMillis() + readinessTimeoutMillis;
+        long pollMillis = READINESS_POLL_MILLIS;
+        while (!readinessProbe.getAsBoolean()) {
+            if (System.currentTimeMillis() >= deadline) {
+                LOGGER.warn(
+                        "Server did not become ready within {} ms after restart, resuming anyway",
+                        readinessTimeoutMillis);
+                return;
+            }
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pollMillis = Math.min(pollMillis * 2, MAX_READINESS_POLL_MILLIS);
+        }
+    }
+
+    public int getHandshakesSinceRestart() {
+        lock.lock();
+        try {
+            return handshakesSinceRestart;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRestarts() {
+        lock.lock();
+        try {
+            return restarts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return pendingSubmissions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
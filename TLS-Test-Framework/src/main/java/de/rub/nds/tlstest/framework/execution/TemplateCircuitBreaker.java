@@ -0,0 +1,168 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import de.rub.nds.tlsattacker.core.state.State;
+import de.rub.nds.tlstest.framework.execution.ReexecutionPolicy.FailureClass;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Stops the execution of a test template once a number of consecutive test cases of the template
+ * failed their validation because the SUT could not be reached. Only failures the
+ * ReexecutionPolicy classifies as {@link FailureClass#TRANSIENT_TRANSPORT} count, i.e. the
+ * connection failed before any message was received and remained failing after all
+ * reexecutions. These indicate a problem of the environment, such as a crashed SUT, rather than a
+ * reaction of the SUT to the test case. Test cases failing in reaction to our messages therefore
+ * never open the breaker.
+ *
+ * <p>The remaining test cases of the template are reported as failed with the reason of the
+ * breaker instead of running into the same failure one by one.
+ */
+public class TemplateCircuitBreaker {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final int threshold;
+    private final Map<String, TemplateState> templateStates = new ConcurrentHashMap<>();
+
+    private static class TemplateState {
+        private final String templateName;
+        private String lastSignature;
+        private int consecutiveFailures = 0;
+        private String openReason;
+        private int skippedTestCases = 0;
+
+        private TemplateState(String templateName) {
+            this.templateName = templateName;
+        }
+    }
+
+    /**
+     * @param threshold number of consecutive identical failures that open the breaker of a
+     *     template
+     */
+    public TemplateCircuitBreaker(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Checks whether test cases of the template may still be executed.
+     *
+     * @param templateId unique id of the template's ExtensionContext
+     * @return the reason for skipping the test case or null if it may be executed
+     */
+    public String acquire(String templateId) {
+        TemplateState templateState = templateStates.get(templateId);
+        if (templateState == null) {
+            return null;
+        }
+        synchronized (templateState) {
+            if (templateState.openReason != null) {
+                templateState.skippedTestCases++;
+            }
+            return templateState.openReason;
+        }
+    }
+
+    /**
+     * Records the outcome of a validated test case of the template. Only test cases that failed
+     * their validation without reaching the SUT count towards the threshold, hence templates
+     * expecting a timeout or a closed connection do not open the breaker.
+     *
+     * @param templateId unique id of the template's ExtensionContext
+     * @param templateName name of the template used for logging and statistics
+     * @param state the executed state
+     * @param failed whether the test case failed its validation
+     */
+    public void recordOutcome(String templateId, String templateName, State state, boolean failed) {
+        recordFailureSignature(
+                templateId, templateName, failed ? getFailureSignature(state) : null);
+    }
+
+    void recordFailureSignature(String templateId, String templateName, String signature) {
+        TemplateState templateState =
+                templateStates.computeIfAbsent(
+                        templateId,
+                        key -> new TemplateState(templateName != null ? templateName : key));
+        synchronized (templateState) {
+            if (templateState.openReason != null) {
+                return;
+            }
+            if (signature == null) {
+                templateState.consecutiveFailures = 0;
+            } else if (signature.equals(templateState.lastSignature)) {
+                templateState.consecutiveFailures++;
+            } else {
+                templateState.consecutiveFailures = 1;
+            }
+            templateState.lastSignature = signature;
+
+            if (templateState.consecutiveFailures >= threshold) {
+                templateState.openReason =
+                        String.format(
+                                "Not executed as %d consecutive test cases of this template could"
+                                        + " not reach the SUT (%s)",
+                                templateState.consecutiveFailures, signature);
+                LOGGER.warn(
+                        "Failing remaining test cases of {} after {} consecutive test cases "
+                                + "could not reach the SUT ({})",
+                        templateState.templateName,
+                        templateState.consecutiveFailures,
+                        signature);
+            }
+        }
+    }
+
+    /**
+     * @param state the executed state
+     * @return a description of the failure or null if the execution did not fail to reach the SUT
+     */
+    static String getFailureSignature(State state) {
+        if (ReexecutionPolicy.classify(state) != FailureClass.TRANSIENT_TRANSPORT) {
+            return null;
+        }
+        Throwable executionException = state.getExecutionException();
+        return String.format(
+                "exception: %s, socket state: %s",
+                executionException != null
+                        ? executionException.getClass().getSimpleName()
+                        : "TransportHandler exception",
+                state.getTcpContext() == null
+                        ? null
+                        : state.getTcpContext().getFinalSocketState());
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return reasons and skipped test cases of all templates with an open breaker
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> openTemplates = new TreeMap<>();
+        for (TemplateState templateState : templateStates.values()) {
+            synchronized (templateState) {
+                if (templateState.openReason != null) {
+                    Map<String, Object> details = new LinkedHashMap<>();
+                    details.put("Reason", templateState.openReason);
+                    details.put("SkippedTestCases", templateState.skippedTestCases);
+                    openTemplates.put(templateState.templateName, details);
+                }
+            }
+        }
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("Threshold", threshold);
+        statistics.put("OpenTemplates", openTemplates);
+        return statistics;
+    }
+}
@@ -1,11 +1,9 @@
 package de.rub.nds.tlstest.framework.execution;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.rub.nds.anvilcore.constants.TestEndpointType;
 import de.rub.nds.anvilcore.context.AnvilContext;
 import de.rub.nds.anvilcore.junit.extension.EndpointConditionExtension;
-import de.rub.nds.scanner.core.probe.ProbeType;
+import de.rub.nds.scanner.core.probe.result.TestResult;
 import de.rub.nds.scanner.core.probe.result.TestResults;
 import de.rub.nds.tlsattacker.core.config.Config;
 import de.rub.nds.tlsattacker.core.config.delegate.GeneralDelegate;
@@ -14,18 +12,23 @@ import de.rub.nds.tlsattacker.core.constants.CipherSuite;
 import de.rub.nds.tlsattacker.core.constants.HandshakeMessageType;
 import de.rub.nds.tlsattacker.core.constants.NamedGroup;
 import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
+import de.rub.nds.tlsattacker.core.constants.RunningModeType;
 import de.rub.nds.tlsattacker.core.protocol.message.ClientHelloMessage;
 import de.rub.nds.tlsattacker.core.state.State;
 import de.rub.nds.tlsattacker.core.workflow.ParallelExecutor;
 import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
 import de.rub.nds.tlsattacker.core.workflow.WorkflowTraceUtil;
 import de.rub.nds.tlsattacker.core.workflow.action.ReceiveAction;
+import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowConfigurationFactory;
+import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowTraceType;
 import de.rub.nds.tlsattacker.core.workflow.task.StateExecutionTask;
 import de.rub.nds.tlsattacker.transport.tcp.ServerTcpTransportHandler;
 import de.rub.nds.tlsscanner.clientscanner.config.ClientScannerConfig;
 import de.rub.nds.tlsscanner.clientscanner.execution.TlsClientScanner;
+import de.rub.nds.tlsscanner.clientscanner.report.ClientReport;
 import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
 import de.rub.nds.tlsscanner.core.constants.TlsProbeType;
+import de.rub.nds.tlsscanner.core.report.TlsScanReport;
 import de.rub.nds.tlsscanner.serverscanner.config.ServerScannerConfig;
 import de.rub.nds.tlsscanner.serverscanner.execution.TlsServerScanner;
 import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
@@ -33,21 +36,31 @@ import de.rub.nds.tlstest.framework.ClientFeatureExtractionResult;
 import de.rub.nds.tlstest.framework.FeatureExtractionResult;
 import de.rub.nds.tlstest.framework.ServerFeatureExtractionResult;
 import de.rub.nds.tlstest.framework.TestContext;
+import de.rub.nds.tlstest.framework.cache.CachedFeatureExtractionResult;
+import de.rub.nds.tlstest.framework.cache.FeatureExtractionCache;
+import de.rub.nds.tlstest.framework.cache.FeatureExtractionCacheKey;
+import de.rub.nds.tlstest.framework.cache.ProbeRecord;
+import de.rub.nds.tlstest.framework.cache.SutIdentity;
 import de.rub.nds.tlstest.framework.config.TlsTestConfig;
 import de.rub.nds.tlstest.framework.config.delegates.TestClientDelegate;
 import de.rub.nds.tlstest.framework.junitExtensions.TlsVersionCondition;
+import de.rub.nds.tlstest.framework.utils.ThreadFactories;
 import java.io.*;
 import java.lang.reflect.Method;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.net.Socket;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -66,211 +79,433 @@ import org.junit.platform.launcher.*;
 public class TestPreparator {
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private static final long SERVER_RESTART_READINESS_TIMEOUT = 60000;
+
+    private static final List<TlsProbeType> FEATURE_EXTRACTION_PROBES =
+            List.of(
+                    TlsProbeType.COMMON_BUGS,
+                    TlsProbeType.CIPHER_SUITE,
+                    TlsProbeType.CERTIFICATE,
+                    TlsProbeType.COMPRESSIONS,
+                    TlsProbeType.NAMED_GROUPS,
+                    TlsProbeType.PROTOCOL_VERSION,
+                    TlsProbeType.EC_POINT_FORMAT,
+                    TlsProbeType.RESUMPTION,
+                    TlsProbeType.EXTENSIONS,
+                    TlsProbeType.RECORD_FRAGMENTATION,
+                    TlsProbeType.HELLO_RETRY,
+                    TlsProbeType.HTTP_HEADER,
+                    TlsProbeType.CONNECTION_CLOSING_DELTA,
+                    TlsProbeType.SIGNATURE_AND_HASH);
+
+    // measures how long the server keeps idle connections open, concurrent connections would
+    // distort the measurement
+    private static final List<TlsProbeType> EXCLUSIVE_PROBES =
+            List.of(TlsProbeType.CONNECTION_CLOSING_DELTA);
+    // the exclusive scan starts with an empty report, hence the probes whose results the
+    // exclusive probes require are executed again, e.g. the connection closing probe requires
+    // the supported protocol versions
+    private static final List<TlsProbeType> EXCLUSIVE_PROBE_REQUIREMENTS =
+            List.of(TlsProbeType.PROTOCOL_VERSION);
+
     private final TlsTestConfig testConfig;
     private final TestContext testContext;
+    private final TestPlan testPlan;
+    private final PreparationWarmup warmup;
     private Process tcpdumpProcess;
 
-    private boolean targetIsReady = false;
+    private volatile boolean targetIsReady = false;
+    private ServerReadinessProbe serverReadinessProbe;
 
     public TestPreparator(TlsTestConfig testConfig, TestContext testContext) {
+        this(testConfig, testContext, null);
+    }
+
+    /**
+     * @param testConfig the config of the run
+     * @param testContext the context of the run
+     * @param testPlan the discovered tests, used to skip probes no test requires, may be null
+     */
+    public TestPreparator(TlsTestConfig testConfig, TestContext testContext, TestPlan testPlan) {
+        this(testConfig, testContext, testPlan, null);
+    }
+
+    /**
+     * @param testConfig the config of the run
+     * @param testContext the context of the run
+     * @param testPlan the discovered tests, used to skip probes no test requires, may be null
+     * @param warmup runs work that does not depend on the SUT while waiting for the SUT, may be
+     *     null
+     */
+    public TestPreparator(
+            TlsTestConfig testConfig,
+            TestContext testContext,
+            TestPlan testPlan,
+            PreparationWarmup warmup) {
         this.testConfig = testConfig;
         this.testContext = testContext;
+        this.testPlan = testPlan;
+        this.warmup = warmup;
     }
 
     /**
-     * Save the supplied FeatureExtractionResult to the disk. Two files are created: a JavaObject
-     * .ser and a readable .json file.
+     * @param probes all probes of the feature extraction
+     * @return the probes whose results are read by the scheduled tests
+     */
+    private List<TlsProbeType> selectProbes(List<TlsProbeType> probes) {
+        if (testPlan == null || testConfig.isRunAllProbes()) {
+            return probes;
+        }
+        return new FeatureExtractionProbeSelector(TestPreparator.class.getClassLoader())
+                .selectProbes(probes, FeatureExtractionProbeSelector.getTestClassNames(testPlan));
+    }
+
+    /**
+     * Selects the probes while waiting for the SUT if a warmup is available.
      *
-     * @param report the FeatureExtractionResult created through TLS-Scanner
+     * @param probes all probes of the feature extraction
+     * @return a future completed with the probes whose results are read by the scheduled tests
      */
-    private void saveToCache(@Nonnull FeatureExtractionResult report) {
-        String fileName;
+    private CompletableFuture<List<TlsProbeType>> selectProbesAsync(List<TlsProbeType> probes) {
+        if (warmup == null) {
+            return CompletableFuture.completedFuture(selectProbes(probes));
+        }
+        return warmup.submit("probe selection", () -> selectProbes(probes));
+    }
+
+    private FeatureExtractionCache createCache() {
+        return new FeatureExtractionCache(
+                Paths.get(testConfig.getCacheDirectory()),
+                TimeUnit.HOURS.toMillis(testConfig.getCacheTimeToLive()));
+    }
+
+    private String getCacheEndpoint() {
         if (testConfig.getTestEndpointMode() == TestEndpointType.CLIENT) {
-            fileName = testConfig.getTestClientDelegate().getPort().toString();
+            return "CLIENT/" + testConfig.getTestClientDelegate().getPort();
         } else {
-            fileName =
-                    testConfig.getTestServerDelegate().getExtractedHost()
-                            + "_"
-                            + testConfig.getTestServerDelegate().getExtractedPort();
+            return "SERVER/"
+                    + testConfig.getTestServerDelegate().getExtractedHost()
+                    + ":"
+                    + testConfig.getTestServerDelegate().getExtractedPort();
         }
+    }
 
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker());
-            mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            mapper.writeValue(new File(fileName + ".json"), report);
+    private FeatureExtractionCacheKey createCacheKey() {
+        return new FeatureExtractionCacheKey(
+                getCacheEndpoint(),
+                testConfig.isUseDTLS(),
+                FeatureExtractionCacheKey.getCurrentFormatVersion());
+    }
 
-            FileOutputStream fos = new FileOutputStream(fileName + ".ser");
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            oos.writeObject(report);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    /**
+     * Save the supplied FeatureExtractionResult to the cache directory. Probes that were not
+     * executed keep the record of the cached result they were taken from.
+     *
+     * @param cacheKey key of the result
+     * @param report the FeatureExtractionResult created through TLS-Scanner
+     * @param scannedProbes the probes executed for this result
+     * @param cachedResult the cached result this result was merged with or null
+     * @param sutIdentity the identity of the SUT during the scan
+     */
+    private void saveToCache(
+            @Nonnull FeatureExtractionCacheKey cacheKey,
+            @Nonnull FeatureExtractionResult report,
+            List<TlsProbeType> scannedProbes,
+            @Nullable CachedFeatureExtractionResult cachedResult,
+            String sutIdentity) {
+        Map<String, ProbeRecord> probeRecords = new HashMap<>();
+        if (cachedResult != null) {
+            probeRecords.putAll(cachedResult.getProbeRecords());
         }
+        long scannedAt = System.currentTimeMillis();
+        for (TlsProbeType probe : scannedProbes) {
+            probeRecords.put(probe.name(), new ProbeRecord(sutIdentity, scannedAt));
+        }
+        createCache().store(cacheKey, report, probeRecords);
     }
 
     /**
-     * Returns a FeatureExtractionResult, if a corresponding file for the given configuration is
-     * found on disk. Only the serialized Java-Object .ser file is used.
+     * Returns a FeatureExtractionResult, if a result for the given key is found in the cache
+     * directory. Cached results of the endpoint are removed first if invalidation was requested.
      *
-     * @return the FeatureExtractionResult or null, if not found
+     * @param cacheKey key of the requested result
+     * @return the FeatureExtractionResult and its probe records or null, if not found
      */
     @Nullable
-    private FeatureExtractionResult loadFromCache() {
-        String fileName;
-        if (testConfig.getTestEndpointMode() == TestEndpointType.CLIENT) {
-            fileName = testConfig.getTestClientDelegate().getPort().toString();
-        } else {
-            fileName =
-                    testConfig.getTestServerDelegate().getExtractedHost()
-                            + "_"
-                            + testConfig.getTestServerDelegate().getExtractedPort();
-        }
-        fileName = fileName + ".ser";
-        File f = new File(fileName);
-        if (f.exists() && !testConfig.getAnvilTestConfig().isIgnoreCache()) {
-            try {
-                FileInputStream fis = new FileInputStream(fileName);
-                ObjectInputStream ois = new ObjectInputStream(fis);
-                LOGGER.info("Reading cached ScanReport");
-                return (FeatureExtractionResult) ois.readObject();
-            } catch (InvalidClassException e) {
-                LOGGER.info("Cached SiteReport appears to be outdated");
-            } catch (Exception e) {
-                LOGGER.error("Failed to load cached ScanReport {}", fileName, e);
-            }
-        } else if (f.exists() && testConfig.getAnvilTestConfig().isIgnoreCache()) {
+    private CachedFeatureExtractionResult loadFromCache(
+            @Nonnull FeatureExtractionCacheKey cacheKey) {
+        FeatureExtractionCache cache = createCache();
+        if (testConfig.isInvalidateCache()) {
+            int removedEntries = cache.invalidate(cacheKey.getEndpoint());
+            LOGGER.info(
+                    "Removed {} cached ScanReports of {}", removedEntries, cacheKey.getEndpoint());
+            return null;
+        }
+        if (testConfig.getAnvilTestConfig().isIgnoreCache()) {
             LOGGER.info("Ignoring cached ScanReport as configurated");
-        } else {
-            LOGGER.info("No matching ScanReport has been cached yet");
+            return null;
         }
+        return cache.load(cacheKey);
+    }
 
-        return null;
+    /**
+     * Determines the probes that have to be executed to obtain an up-to-date result. Without a
+     * cached result, all probes are executed. Otherwise, only stale probes and probes whose
+     * refresh was requested are executed, accompanied by the given base probe whose results are
+     * required by the other probes.
+     *
+     * @param probes all probes of the feature extraction
+     * @param cachedResult the cached result or null
+     * @param sutIdentity the identity the SUT presents now
+     * @param baseProbe probe that is executed whenever any other probe is executed
+     * @return the probes to execute, empty if the cached result is up-to-date
+     */
+    private List<TlsProbeType> getProbesToScan(
+            List<TlsProbeType> probes,
+            @Nullable CachedFeatureExtractionResult cachedResult,
+            String sutIdentity,
+            TlsProbeType baseProbe) {
+        if (cachedResult == null) {
+            return new LinkedList<>(probes);
+        }
+        List<String> probeNames =
+                probes.stream().map(TlsProbeType::name).collect(Collectors.toList());
+        for (String refreshProbe : testConfig.getRefreshProbes()) {
+            if (!probeNames.contains(refreshProbe)) {
+                LOGGER.warn("Probe {} is not part of the feature extraction", refreshProbe);
+            }
+        }
+        List<String> staleProbes =
+                cachedResult.getStaleProbes(
+                        probeNames, sutIdentity, testConfig.getRefreshProbes());
+        if (staleProbes.isEmpty()) {
+            LOGGER.info("Using cached ScanReport of {}", getCacheEndpoint());
+            return new LinkedList<>();
+        }
+        LOGGER.info(
+                "Updating cached ScanReport of {}, executing probes {}",
+                getCacheEndpoint(),
+                staleProbes);
+        return probes.stream()
+                .filter(probe -> probe == baseProbe || staleProbes.contains(probe.name()))
+                .collect(Collectors.toCollection(LinkedList::new));
+    }
+
+    /**
+     * Adds the results of the cached feature extraction that were not determined by the probes
+     * executed for the given report.
+     *
+     * @param report report of a scan executing only some of the probes
+     * @param cachedResult the result the missing results are taken from
+     * @param scannedProbes the probes executed for the report
+     */
+    private void mergeCachedResults(
+            TlsScanReport report,
+            FeatureExtractionResult cachedResult,
+            List<TlsProbeType> scannedProbes) {
+        if (cachedResult.getResultMap() != null) {
+            cachedResult
+                    .getResultMap()
+                    .forEach(
+                            (property, result) -> {
+                                TestResult scannedResult = report.getResult(property);
+                                if (scannedResult == null
+                                        || scannedResult == TestResults.NOT_TESTED_YET) {
+                                    report.putResult(property, result);
+                                }
+                            });
+        }
+        if (!scannedProbes.contains(TlsProbeType.CONNECTION_CLOSING_DELTA)) {
+            report.setClosedAfterAppDataDelta(cachedResult.getClosedAfterAppDataDelta());
+            report.setClosedAfterFinishedDelta(cachedResult.getClosedAfterFinishedDelta());
+        }
+    }
+
+    /**
+     * Executes a handshake up to the server's first flight to determine the identity of the
+     * server. The handshake is skipped if cached results are ignored.
+     *
+     * @return the fingerprint of the server
+     */
+    private String determineServerIdentity() {
+        if (testConfig.getAnvilTestConfig().isIgnoreCache()) {
+            // the stored results are considered stale by later runs
+            return SutIdentity.UNKNOWN;
+        }
+        Config config = testConfig.createConfig();
+        WorkflowTrace trace =
+                new WorkflowConfigurationFactory(config)
+                        .createWorkflowTrace(WorkflowTraceType.HELLO, RunningModeType.CLIENT);
+        State state = new State(config, trace);
+        testContext.getStateExecutor().bulkExecuteTasks(new StateExecutionTask(state, 2));
+        String identity = SutIdentity.ofServer(trace);
+        if (SutIdentity.UNKNOWN.equals(identity)) {
+            LOGGER.warn("Failed to determine the server's identity for the feature cache");
+        }
+        return identity;
     }
 
     /**
      * Runs the client trigger script stored in the config until a client connects. Blocks until
-     * success.
+     * success, the readiness timeout expired or the run was aborted.
      */
     private void waitForClient() {
-        try {
-            new Thread(
-                            () -> {
-                                while (!targetIsReady && !testContext.isAborted()) {
-                                    LOGGER.info("Waiting for the client to get ready...");
-                                    try {
-                                        State state = new State();
-                                        testConfig
-                                                .getTestClientDelegate()
-                                                .executeTriggerScript(state);
-                                    } catch (Exception ignored) {
-                                    }
-
-                                    try {
-                                        Thread.sleep(1000);
-                                    } catch (Exception ignored) {
-                                    }
-                                }
-                            })
-                    .start();
+        TestClientDelegate clientDelegate = testConfig.getTestClientDelegate();
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(testConfig.getReadinessTimeout());
+        ThreadFactory threadFactory =
+                ThreadFactories.create("ClientTrigger-", testConfig.isUseVirtualThreads());
+        try (ClientReadinessMonitor readinessMonitor =
+                new ClientReadinessMonitor(
+                        () -> clientDelegate.executeTriggerScript(new State()),
+                        clientDelegate::countRunningTriggerProcesses,
+                        threadFactory)) {
+            if (clientDelegate.getTriggerScript() != null) {
+                readinessMonitor.startTriggering();
+            } else {
+                LOGGER.info("No trigger script configured, waiting for the client to connect...");
+            }
             if (!testConfig.isUseDTLS()) {
-                Socket socket = testConfig.getTestClientDelegate().getServerSocket().accept();
-                targetIsReady = true;
-                socket.close();
+                targetIsReady =
+                        readinessMonitor.awaitConnection(
+                                clientDelegate.getServerSocket(),
+                                timeoutMillis,
+                                testContext::isAborted);
             } else {
-                DatagramSocket socket =
-                        new DatagramSocket(testConfig.getTestClientDelegate().getPort());
-
-                byte[] buf = new byte[256];
-
-                while (!targetIsReady) {
-                    try {
-                        DatagramPacket packet = new DatagramPacket(buf, buf.length);
-                        socket.receive(packet);
-                        if (packet.getLength() > 0) {
-                            targetIsReady = true;
-                            socket.close();
-                        }
-
-                    } catch (Exception ignored) {
-                        ignored.printStackTrace();
-                    }
-                }
+                targetIsReady =
+                        readinessMonitor.awaitDatagram(
+                                clientDelegate.getPort(), timeoutMillis, testContext::isAborted);
             }
-        } catch (Exception ex) {
+        } catch (IOException ex) {
             LOGGER.error(ex);
             throw new RuntimeException("Failed to await client connection");
+        } finally {
+            // the connection of a triggered client has already been closed
+            clientDelegate.destroyTriggerProcesses();
+        }
+        if (!targetIsReady) {
+            throw new RuntimeException("Failed to await client connection");
         }
 
         LOGGER.info("Client is ready, preparing client exploration...");
     }
 
     /**
-     * Tries to make a TCP handshake connection with the server host given in the config. Blocks
-     * until success.
+     * Waits until the server host given in the config answers a ClientHello. Blocks until
+     * success, the readiness timeout expired or the run was aborted.
+     *
+     * @return whether the server is ready
      */
-    private void waitForServer() {
-        OutboundConnection connection = testConfig.createConfig().getDefaultClientConnection();
-
+    private boolean waitForServer() {
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(testConfig.getReadinessTimeout());
         try {
-            Socket conTest = null;
-            DatagramSocket conTestDtls = null;
-            while (!targetIsReady && !testContext.isAborted()) {
-                try {
-                    if (testConfig.isUseDTLS()) {
-                        String connectionEndpoint;
-                        if (connection.getHostname() != null) {
-                            connectionEndpoint = connection.getHostname();
-                        } else {
-                            connectionEndpoint = connection.getIp();
-                        }
-
-                        conTestDtls = new DatagramSocket();
-                        conTestDtls.connect(
-                                InetAddress.getByName(connectionEndpoint), connection.getPort());
-                        targetIsReady = conTestDtls.isConnected(); // TODO always true
-                    } else {
-                        String connectionEndpoint;
-                        if (connection.getHostname() != null) {
-                            connectionEndpoint = connection.getHostname();
-                        } else {
-                            connectionEndpoint = connection.getIp();
-                        }
-                        conTest = new Socket(connectionEndpoint, connection.getPort());
-                        targetIsReady = conTest.isConnected();
-                    }
-                } catch (Exception e) {
-                    LOGGER.warn("Server not yet available (" + e.getLocalizedMessage() + ")");
-                    Thread.sleep(1000);
-                }
-            }
+            targetIsReady =
+                    getServerReadinessProbe().awaitReadiness(timeoutMillis, testContext::isAborted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while waiting for the server", e);
+            return false;
+        }
+        if (!targetIsReady && !testContext.isAborted()) {
+            LOGGER.error(
+                    "Server did not answer a ClientHello within {} seconds",
+                    testConfig.getReadinessTimeout());
+        }
+        return targetIsReady;
+    }
 
-            if (testConfig.isUseDTLS()) {
-                if (conTestDtls != null) conTestDtls.close();
-            } else {
-                if (conTest != null) conTest.close();
-            }
-        } catch (Exception e) {
-            LOGGER.error("Error during server preparation", e);
-            System.exit(2);
+    private ServerReadinessProbe getServerReadinessProbe() {
+        if (serverReadinessProbe == null) {
+            OutboundConnection connection = testConfig.createConfig().getDefaultClientConnection();
+            String connectionEndpoint =
+                    connection.getHostname() != null
+                            ? connection.getHostname()
+                            : connection.getIp();
+            serverReadinessProbe =
+                    new ServerReadinessProbe(
+                            connectionEndpoint,
+                            connection.getPort(),
+                            testConfig.isUseDTLS(),
+                            testConfig.getAnvilTestConfig().getConnectionTimeout());
+        }
+        return serverReadinessProbe;
+    }
+
+    private ServerRestartCoordinator createServerRestartCoordinator() {
+        int restartServerAfter = testConfig.getAnvilTestConfig().getRestartServerAfter();
+        Callable<Integer> timeoutActionScript = testConfig.getTimeoutActionScript();
+        if (testConfig.getTestEndpointMode() != TestEndpointType.SERVER
+                || restartServerAfter <= 0
+                || timeoutActionScript == null) {
+            return null;
         }
+        return new ServerRestartCoordinator(
+                restartServerAfter,
+                () -> {
+                    testContext.getRunMetrics().recordServerRestart();
+                    testContext.resetServerHandshakesSinceRestart();
+                    return timeoutActionScript.call();
+                },
+                getServerReadinessProbe()::isReady,
+                SERVER_RESTART_READINESS_TIMEOUT,
+                ThreadFactories.createDaemon("ServerRestart-", testConfig.isUseVirtualThreads()));
     }
 
     /**
-     * Prepare server test execution: Waiting until the server is ready, and starting a feature
-     * extraction scan if necessary.
+     * Runs the feature extraction scan. If parallel probes are enabled, all probes except those
+     * that require exclusive access to the server are executed concurrently. The connections of
+     * all probes share the StateExecutor of the test run. The remaining probes are executed
+     * sequentially afterwards, together with the probes they require, and their results are
+     * merged into the report.
+     *
+     * @param probes the probes to execute
+     * @return the report of the scan
      */
-    private void serverTestPreparation() {
-        waitForServer();
+    private ServerReport scanServer(List<TlsProbeType> probes) {
+        int parallelProbes = testConfig.getParallelProbes();
+        if (parallelProbes <= 1) {
+            return createServerScanner(probes, 1).scan();
+        }
 
-        FeatureExtractionResult cachedReport = loadFromCache();
-        if (cachedReport != null) {
-            testContext.setFeatureExtractionResult(cachedReport);
-            return;
+        List<TlsProbeType> concurrentProbes = new LinkedList<>(probes);
+        concurrentProbes.removeAll(EXCLUSIVE_PROBES);
+        LOGGER.info(
+                "Running {} probes with {} parallel probes",
+                concurrentProbes.size(),
+                parallelProbes);
+        ServerReport serverReport = createServerScanner(concurrentProbes, parallelProbes).scan();
+        List<TlsProbeType> exclusiveProbes = getExclusiveScanProbes(probes);
+        if (exclusiveProbes.isEmpty()) {
+            return serverReport;
         }
 
-        // TODO: FERRE
-        LOGGER.info("Server available, starting TLS-Scanner");
+        LOGGER.info("Running probes that require exclusive access: {}", exclusiveProbes);
+        mergeExclusiveReport(serverReport, createServerScanner(exclusiveProbes, 1).scan());
+        return serverReport;
+    }
+
+    /**
+     * @param probes the probes to execute
+     * @return the probes of the exclusive scan, i.e. the given probes that require exclusive
+     *     access to the server and the probes they require, or an empty list if none of the given
+     *     probes requires exclusive access
+     */
+    static List<TlsProbeType> getExclusiveScanProbes(List<TlsProbeType> probes) {
+        List<TlsProbeType> exclusiveProbes =
+                probes.stream()
+                        .filter(EXCLUSIVE_PROBES::contains)
+                        .collect(Collectors.toCollection(LinkedList::new));
+        if (!exclusiveProbes.isEmpty()) {
+            exclusiveProbes.addAll(0, EXCLUSIVE_PROBE_REQUIREMENTS);
+        }
+        return exclusiveProbes;
+    }
+
+    static void mergeExclusiveReport(ServerReport serverReport, ServerReport exclusiveReport) {
+        serverReport.setClosedAfterAppDataDelta(exclusiveReport.getClosedAfterAppDataDelta());
+        serverReport.setClosedAfterFinishedDelta(exclusiveReport.getClosedAfterFinishedDelta());
+    }
+
+    private TlsServerScanner createServerScanner(List<TlsProbeType> probes, int parallelProbes) {
         ServerScannerConfig scannerConfig =
                 new ServerScannerConfig(
                         testConfig.getGeneralDelegate(), testConfig.getTestServerDelegate());
@@ -284,30 +519,50 @@ public class TestPreparator {
             scannerConfig.getDtlsDelegate().setDTLS(true);
         }
 
-        scannerConfig
-                .getExecutorConfig()
-                .setProbes(
-                        TlsProbeType.COMMON_BUGS,
-                        TlsProbeType.CIPHER_SUITE,
-                        TlsProbeType.CERTIFICATE,
-                        TlsProbeType.COMPRESSIONS,
-                        TlsProbeType.NAMED_GROUPS,
-                        TlsProbeType.PROTOCOL_VERSION,
-                        TlsProbeType.EC_POINT_FORMAT,
-                        TlsProbeType.RESUMPTION,
-                        TlsProbeType.EXTENSIONS,
-                        TlsProbeType.RECORD_FRAGMENTATION,
-                        TlsProbeType.HELLO_RETRY,
-                        TlsProbeType.HTTP_HEADER,
-                        TlsProbeType.CONNECTION_CLOSING_DELTA,
-                        TlsProbeType.SIGNATURE_AND_HASH);
-        scannerConfig.getExecutorConfig().setOverallThreads(1);
-        scannerConfig.getExecutorConfig().setParallelProbes(1);
-        scannerConfig.setConfigSearchCooldown(true);
-
-        TlsServerScanner scanner =
-                new TlsServerScanner(scannerConfig, testContext.getStateExecutor());
-        ServerReport serverReport = scanner.scan();
+        scannerConfig.getExecutorConfig().setProbes(probes.toArray(new TlsProbeType[0]));
+        scannerConfig.getExecutorConfig().setOverallThreads(parallelProbes);
+        scannerConfig.getExecutorConfig().setParallelProbes(parallelProbes);
+        // the cooldown spreads the config search over time, which only makes sense if the
+        // probes are executed sequentially
+        scannerConfig.setConfigSearchCooldown(parallelProbes <= 1);
+
+        return new TlsServerScanner(scannerConfig, testContext.getStateExecutor());
+    }
+
+    /**
+     * Prepare server test execution: Waiting until the server is ready, and starting a feature
+     * extraction scan if necessary.
+     *
+     * @return false if the server did not become ready
+     */
+    private boolean serverTestPreparation() {
+        CompletableFuture<List<TlsProbeType>> selectedProbes =
+                selectProbesAsync(FEATURE_EXTRACTION_PROBES);
+        if (!waitForServer()) {
+            return false;
+        }
+
+        String sutIdentity = determineServerIdentity();
+        FeatureExtractionCacheKey cacheKey = createCacheKey();
+        CachedFeatureExtractionResult cachedResult = loadFromCache(cacheKey);
+        // most probes require the supported protocol versions
+        List<TlsProbeType> probes =
+                getProbesToScan(
+                        selectedProbes.join(),
+                        cachedResult,
+                        sutIdentity,
+                        TlsProbeType.PROTOCOL_VERSION);
+        if (probes.isEmpty()) {
+            testContext.setFeatureExtractionResult(cachedResult.getResult());
+            return true;
+        }
+
+        // TODO: FERRE
+        LOGGER.info("Server available, starting TLS-Scanner");
+        ServerReport serverReport = scanServer(probes);
+        if (cachedResult != null) {
+            mergeCachedResults(serverReport, cachedResult.getResult(), probes);
+        }
         serverReport.putResult(TlsAnalyzedProperty.HTTPS_HEADER, TestResults.ERROR_DURING_TEST);
 
         // TODO: FERRE
@@ -365,61 +620,78 @@ public class TestPreparator {
         LOGGER.info("Supported named groups witnesses TLS 1.3: {}", serverReport.getSupportedNamedGroupsWitnessesTls13());
 
         // TODO: here we fail
-        FeatureExtractionResult report =
+        ServerFeatureExtractionResult report =
                 ServerFeatureExtractionResult.fromServerScanReport(serverReport);
-        saveToCache(report);
+        if (cachedResult != null && report.getGuidelineChecks().isEmpty()) {
+            // guidelines are only evaluated if the probes they depend on were executed
+            report.setGuidelineChecks(
+                    ((ServerFeatureExtractionResult) cachedResult.getResult())
+                            .getGuidelineChecks());
+        }
+        saveToCache(cacheKey, report, probes, cachedResult, sutIdentity);
 
         testContext.setFeatureExtractionResult(report);
         LOGGER.debug("TLS-Scanner finished!");
+        return true;
     }
 
     /**
      * Prepare client test execution: Waiting until the client is ready and starting a feature
      * extraction scan if necessary.
+     *
+     * <p>Every connection requires triggering the client, which may take seconds for some
+     * clients. Without a cached result, the ClientHello used by the tests is therefore taken from
+     * the first connection of the scan, which is made by the basic probe, instead of triggering
+     * the client once more beforehand.
      */
     private void clientTestPreparation() {
+        CompletableFuture<List<TlsProbeType>> selectedProbes = selectProbesAsync(getClientProbes());
         waitForClient();
 
-        ClientFeatureExtractionResult cachedReport =
-                (ClientFeatureExtractionResult) loadFromCache();
-        if (cachedReport != null) {
-            testContext.setFeatureExtractionResult(cachedReport);
-            testContext.setReceivedClientHelloMessage(cachedReport.getReceivedClientHello());
-            return;
-        }
-
+        // shared by the ClientHello capture and the scanner
+        Queue<State> scannedStates = new ConcurrentLinkedQueue<>();
         ParallelExecutor preparedExecutor =
                 new ParallelExecutor(testConfig.getAnvilTestConfig().getParallelTestCases(), 2);
-        preparedExecutor.setDefaultBeforeTransportPreInitCallback(getSocketManagementCallback());
-
-        ClientHelloMessage clientHello = catchClientHello(preparedExecutor);
-        if (clientHello == null) {
-            throw new RuntimeException("Failed to receive a ClientHello in test preparation");
+        preparedExecutor.setDefaultBeforeTransportPreInitCallback(
+                getSocketManagementCallback(scannedStates));
+
+        List<TlsProbeType> clientProbes = selectedProbes.join();
+        FeatureExtractionCacheKey cacheKey = createCacheKey();
+        CachedFeatureExtractionResult cachedResult = loadFromCache(cacheKey);
+        ClientHelloMessage clientHello = null;
+        String sutIdentity = null;
+        List<TlsProbeType> probes = new LinkedList<>(clientProbes);
+        if (cachedResult != null) {
+            // the client's identity determines which cached results are still valid
+            clientHello = catchClientHello(preparedExecutor);
+            if (clientHello == null) {
+                throw new RuntimeException("Failed to receive a ClientHello in test preparation");
+            }
+            sutIdentity = SutIdentity.ofClient(clientHello);
+            // the basic probe provides the properties of the client's ClientHello
+            probes = getProbesToScan(clientProbes, cachedResult, sutIdentity, TlsProbeType.BASIC);
+            if (probes.isEmpty()) {
+                ClientFeatureExtractionResult cachedReport =
+                        (ClientFeatureExtractionResult) cachedResult.getResult();
+                // the ClientHello is not cached, the one just received has the same identity
+                cachedReport.setReceivedClientHello(clientHello);
+                testContext.setFeatureExtractionResult(cachedReport);
+                testContext.setReceivedClientHelloMessage(clientHello);
+                return;
+            }
         }
-        LOGGER.info("Received Client Hello. Starting Client-Scanner for feature extraction.");
+        LOGGER.info("Starting Client-Scanner for feature extraction.");
 
         ClientScannerConfig clientScannerConfig = new ClientScannerConfig(new GeneralDelegate());
-        List<ProbeType> probes = new LinkedList<>();
-        probes.add(TlsProbeType.BASIC);
-        probes.add(TlsProbeType.CIPHER_SUITE);
-        probes.add(TlsProbeType.PROTOCOL_VERSION);
-        probes.add(TlsProbeType.NAMED_GROUPS);
-        probes.add(TlsProbeType.EC_POINT_FORMAT);
-        probes.add(TlsProbeType.SERVER_CERTIFICATE_MINIMUM_KEY_SIZE);
-        probes.add(TlsProbeType.CONNECTION_CLOSING_DELTA);
-        probes.add(TlsProbeType.APPLICATION_MESSAGE);
         clientScannerConfig
                 .getServerDelegate()
                 .setPort(testConfig.getDelegate(TestClientDelegate.class).getPort());
         clientScannerConfig.setTimeout(testConfig.getAnvilTestConfig().getConnectionTimeout());
-        clientScannerConfig.getExecutorConfig().setProbes(probes);
+        clientScannerConfig.getExecutorConfig().setProbes(new LinkedList<>(probes));
         clientScannerConfig.setExternalRunCallback(
                 testConfig.getTestClientDelegate().getTriggerScript());
         if (testConfig.isUseDTLS()) {
             clientScannerConfig.getDtlsDelegate().setDTLS(true);
-            probes.add(TlsProbeType.DTLS_FRAGMENTATION);
-        } else {
-            probes.add(TlsProbeType.RECORD_FRAGMENTATION);
         }
 
         TlsClientScanner clientScanner =
@@ -429,16 +701,66 @@ public class TestPreparator {
                 testConfig.getAnvilTestConfig().getIdentifier() == null
                         ? "client"
                         : testConfig.getAnvilTestConfig().getIdentifier();
+        ClientReport clientReport = clientScanner.scan();
+        if (clientHello == null) {
+            clientHello = findReceivedClientHello(scannedStates);
+            if (clientHello == null) {
+                LOGGER.info("Scanner did not receive a ClientHello, triggering the client again");
+                clientHello = catchClientHello(preparedExecutor);
+            }
+            if (clientHello == null) {
+                throw new RuntimeException("Failed to receive a ClientHello in test preparation");
+            }
+            sutIdentity = SutIdentity.ofClient(clientHello);
+        }
+        scannedStates.clear();
+        if (cachedResult != null) {
+            mergeCachedResults(clientReport, cachedResult.getResult(), probes);
+        }
         ClientFeatureExtractionResult extractionResult =
-                ClientFeatureExtractionResult.fromClientScanReport(
-                        clientScanner.scan(), identifier);
+                ClientFeatureExtractionResult.fromClientScanReport(clientReport, identifier);
 
         extractionResult.setReceivedClientHello(clientHello);
-        saveToCache(extractionResult);
+        saveToCache(cacheKey, extractionResult, probes, cachedResult, sutIdentity);
         testContext.setReceivedClientHelloMessage(clientHello);
         testContext.setFeatureExtractionResult(extractionResult);
     }
 
+    private List<TlsProbeType> getClientProbes() {
+        List<TlsProbeType> probes = new LinkedList<>();
+        probes.add(TlsProbeType.BASIC);
+        probes.add(TlsProbeType.CIPHER_SUITE);
+        probes.add(TlsProbeType.PROTOCOL_VERSION);
+        probes.add(TlsProbeType.NAMED_GROUPS);
+        probes.add(TlsProbeType.EC_POINT_FORMAT);
+        probes.add(TlsProbeType.SERVER_CERTIFICATE_MINIMUM_KEY_SIZE);
+        probes.add(TlsProbeType.CONNECTION_CLOSING_DELTA);
+        probes.add(TlsProbeType.APPLICATION_MESSAGE);
+        if (testConfig.isUseDTLS()) {
+            probes.add(TlsProbeType.DTLS_FRAGMENTATION);
+        } else {
+            probes.add(TlsProbeType.RECORD_FRAGMENTATION);
+        }
+        return probes;
+    }
+
+    /**
+     * @param states states executed during the feature extraction in order of their execution
+     * @return the first ClientHello received in any of the states or null if none was received
+     */
+    private static ClientHelloMessage findReceivedClientHello(Collection<State> states) {
+        for (State state : states) {
+            ClientHelloMessage clientHello =
+                    (ClientHelloMessage)
+                            WorkflowTraceUtil.getFirstReceivedMessage(
+                                    HandshakeMessageType.CLIENT_HELLO, state.getWorkflowTrace());
+            if (clientHello != null) {
+                return clientHello;
+            }
+        }
+        return null;
+    }
+
     private ClientHelloMessage catchClientHello(ParallelExecutor executor) {
         LOGGER.info("Attempting to receive a Client Hello");
         Config config = testConfig.createConfig();
@@ -474,11 +796,54 @@ public class TestPreparator {
             testConfig.getAnvilTestConfig().setParallelTestCases(1);
         }
 
+        if (testConfig.isUseVirtualThreads()) {
+            LOGGER.info(
+                    "Executing handshakes on virtual threads, concurrent handshakes remain bounded"
+                            + " by the state executor");
+        }
+        int parallelTestCases = testConfig.getAnvilTestConfig().getParallelTestCases();
+        int maxParallelHandshakes = parallelTestCases;
+        if (testConfig.isAdaptiveParallelism()) {
+            // each JUnit worker blocks on its own handshake, so the blocking test methods never
+            // have more than parallelTestCases handshakes in flight, only callers of
+            // WorkflowRunner.executeAsync can make use of a higher limit
+            maxParallelHandshakes =
+                    Math.max(testConfig.getMaxParallelHandshakes(), parallelTestCases);
+            LOGGER.info(
+                    "Adapting concurrent handshakes at runtime, starting with {} and using at most {}",
+                    parallelTestCases,
+                    maxParallelHandshakes);
+        }
+        testContext.setConcurrencyController(
+                new AdaptiveConcurrencyController(
+                        parallelTestCases,
+                        maxParallelHandshakes,
+                        testConfig.isAdaptiveParallelism()));
+        // each JUnit worker waits for its handshake, hence more workers than parallel test
+        // cases would stay idle even when they are virtual threads
         ParallelExecutor executor =
-                new ParallelExecutor(testConfig.getAnvilTestConfig().getParallelTestCases(), 1);
+                new ParallelExecutor(
+                        maxParallelHandshakes,
+                        1,
+                        ThreadFactories.create("StateExecutor-", testConfig.isUseVirtualThreads()));
         executor.setTimeoutAction(testConfig.getTimeoutActionScript());
         executor.armTimeoutAction(20000);
         testContext.setStateExecutor(executor);
+        // without a policy, the state executor reexecutes every failed handshake once
+        testContext.setReexecutionPolicy(
+                testConfig.isDisableReexecutionPolicy()
+                        ? null
+                        : new ReexecutionPolicy(
+                                testConfig.getMaxReexecutions(),
+                                testConfig.getReexecutionBackoff(),
+                                ThreadFactories.createDaemon(
+                                        "ReexecutionScheduler-",
+                                        testConfig.isUseVirtualThreads())));
+        testContext.setServerRestartCoordinator(createServerRestartCoordinator());
+        testContext.setTemplateCircuitBreaker(
+                testConfig.getCircuitBreakerThreshold() > 0
+                        ? new TemplateCircuitBreaker(testConfig.getCircuitBreakerThreshold())
+                        : null);
 
         LOGGER.info("Starting preparation phase");
         this.testConfig.createConfig();
@@ -486,7 +851,9 @@ public class TestPreparator {
         if (this.testConfig.getTestEndpointMode() == TestEndpointType.CLIENT) {
             clientTestPreparation();
         } else if (this.testConfig.getTestEndpointMode() == TestEndpointType.SERVER) {
-            serverTestPreparation();
+            if (!serverTestPreparation()) {
+                return false;
+            }
             ServerFeatureExtractionResult featureExtractionResult =
                     (ServerFeatureExtractionResult) testContext.getFeatureExtractionResult();
             AnvilContext.getInstance()
@@ -499,6 +866,7 @@ public class TestPreparator {
             throw new RuntimeException(
                     "Feature extraction result was not set after test preparation");
         }
+        testConfig.prepareConfigs();
 
         boolean startTestSuite = false;
         if (testContext.getFeatureExtractionResult().getSupportedVersions() == null
@@ -620,7 +988,21 @@ public class TestPreparator {
      * @return Function to set socket in created state
      */
     private Function<State, Integer> getSocketManagementCallback() {
+        return getSocketManagementCallback(null);
+    }
+
+    /**
+     * Ensures that the ClientScanner always uses the externally managed socket
+     *
+     * @param executedStates collects the states the callback is applied to, may be null
+     * @return Function to set socket in created state
+     */
+    private Function<State, Integer> getSocketManagementCallback(
+            @Nullable Queue<State> executedStates) {
         return (State state) -> {
+            if (executedStates != null) {
+                executedStates.add(state);
+            }
             try {
                 if (!testConfig.isUseDTLS()) {
                     state.getTlsContext()
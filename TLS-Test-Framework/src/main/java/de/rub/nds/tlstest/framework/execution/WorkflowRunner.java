@@ -8,6 +8,7 @@
 package de.rub.nds.tlstest.framework.execution;
 
 import de.rub.nds.anvilcore.constants.TestEndpointType;
+import de.rub.nds.anvilcore.teststate.TestResult;
 import de.rub.nds.modifiablevariable.util.Modifiable;
 import de.rub.nds.tlsattacker.core.config.Config;
 import de.rub.nds.tlsattacker.core.constants.ExtensionType;
@@ -42,18 +43,26 @@ import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowConfigurationFactory
 import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowTraceType;
 import de.rub.nds.tlsattacker.core.workflow.task.StateExecutionTask;
 import de.rub.nds.tlsattacker.transport.TransportHandler;
+import de.rub.nds.tlsattacker.transport.socket.SocketState;
 import de.rub.nds.tlsattacker.transport.tcp.ServerTcpTransportHandler;
 import de.rub.nds.tlsattacker.transport.tcp.TcpTransportHandler;
 import de.rub.nds.tlsattacker.transport.udp.ServerUdpTransportHandler;
 import de.rub.nds.tlsattacker.transport.udp.UdpTransportHandler;
 import de.rub.nds.tlstest.framework.ClientFeatureExtractionResult;
 import de.rub.nds.tlstest.framework.TestContext;
+import de.rub.nds.tlstest.framework.anvil.TestCasePhase;
 import de.rub.nds.tlstest.framework.anvil.TlsParameterCombination;
 import de.rub.nds.tlstest.framework.anvil.TlsTestCase;
+import de.rub.nds.tlstest.framework.utils.Utils;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.annotation.Nonnull;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -81,7 +90,8 @@ public class WorkflowRunner {
     private Boolean autoHelloRetryRequest = true;
     private Boolean autoAdaptForDtls = true;
 
-    private static Map<ExtensionContext, WorkflowRunner> workflowRunners = new HashMap<>();
+    private static Map<ExtensionContext, WorkflowRunner> workflowRunners =
+            new ConcurrentHashMap<>();
     private TlsTestCase tlsTestCase;
 
     public WorkflowRunner(ExtensionContext extensionContext) {
@@ -96,6 +106,10 @@ public class WorkflowRunner {
         return workflowRunners.get(extensionContext).tlsTestCase;
     }
 
+    public TlsTestCase getTlsTestCase() {
+        return tlsTestCase;
+    }
+
     public WorkflowRunner(ExtensionContext extensionContext, Config config) {
         this(extensionContext);
         this.preparedConfig = config;
@@ -103,17 +117,57 @@ public class WorkflowRunner {
 
     /**
      * Executes a WorkflowTrace. It performs the derivation and executes each derived handshake.
+     * The calling thread is blocked until the handshake has been executed.
      *
      * @param trace Trace to execute
      * @param config TLS-Attacker Config to be used for execution
      * @return
      */
     public TlsTestCase execute(WorkflowTrace trace, Config config) {
+        try {
+            return executeAsync(trace, config).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Executes a WorkflowTrace without blocking the calling thread. The handshake is handed to
+     * the state executor and the returned future is completed once it has been executed. The
+     * number of concurrent handshakes is therefore only limited by the executor's capacity.
+     *
+     * <p>Note that a WorkflowRunner holds a single TlsTestCase, hence only one execution per
+     * runner may be pending at a time.
+     *
+     * @param trace Trace to execute
+     * @param config TLS-Attacker Config to be used for execution
+     * @return future completed with the TlsTestCase of this runner
+     */
+    public CompletableFuture<TlsTestCase> executeAsync(WorkflowTrace trace, Config config) {
         tlsTestCase.setState(new State(config, trace));
         tlsTestCase.setParameterCombination(parameterCombination);
         // don't run if testrun is already aborted
         if (context.isAborted()) {
-            return tlsTestCase;
+            return CompletableFuture.completedFuture(tlsTestCase);
+        }
+
+        TemplateCircuitBreaker circuitBreaker = context.getTemplateCircuitBreaker();
+        if (circuitBreaker != null) {
+            String skipReason = circuitBreaker.acquire(getTemplateId());
+            if (skipReason != null) {
+                // the SUT is considered unreachable, the test case is reported as failed rather
+                // than as disabled so that the affected templates remain visible in the results
+                AssertionError skipError = new AssertionError(skipReason);
+                tlsTestCase.setFailedReason(skipError);
+                tlsTestCase.setTestResult(TestResult.FULLY_FAILED);
+                tlsTestCase.addAdditionalResultInfo(skipReason);
+                return CompletableFuture.failedFuture(skipError);
+            }
         }
 
         if (preparedConfig == null) {
@@ -123,19 +177,121 @@ public class WorkflowRunner {
             preparedConfig = config;
         }
 
+        long adaptationStart = System.nanoTime();
         adaptWorkflowTrace(trace, config);
-        StateExecutionTask task =
-                new StateExecutionTask(
-                        tlsTestCase.getState(), context.getStateExecutor().getReexecutions());
+        tlsTestCase.recordPhaseDuration(
+                TestCasePhase.TRACE_ADAPTATION, System.nanoTime() - adaptationStart);
+        ReexecutionPolicy reexecutionPolicy = context.getReexecutionPolicy();
+        CompletableStateExecutionTask task =
+                new CompletableStateExecutionTask(
+                        tlsTestCase.getState(),
+                        reexecutionPolicy == null
+                                ? context.getStateExecutor().getReexecutions()
+                                : 0);
         if (context.getConfig().getTestEndpointMode() == TestEndpointType.SERVER) {
             prepareServerTask(task);
         } else {
             prepareClientTask(task);
         }
         setPortCallback(task, tlsTestCase);
-        context.getStateExecutor().bulkExecuteTasks(task);
-        postExecution(task, tlsTestCase);
-        return tlsTestCase;
+        if (reexecutionPolicy != null) {
+            task.setReexecutionPolicy(
+                    reexecutionPolicy,
+                    this::prepareReexecution,
+                    this::submitExecution);
+        }
+        // the trigger script runs within the execution, its duration is recorded separately
+        long transportInitBefore = tlsTestCase.getPhaseDuration(TestCasePhase.TRANSPORT_INIT);
+        submitTask(task);
+        return task.getCompletion()
+                .thenApply(
+                        executedTask -> {
+                            recordMetrics(executedTask);
+                            tlsTestCase.setReexecutions(executedTask.getReexecutionsPerClass());
+                            long transportInitNanos =
+                                    tlsTestCase.getPhaseDuration(TestCasePhase.TRANSPORT_INIT)
+                                            - transportInitBefore;
+                            tlsTestCase.recordPhaseDuration(
+                                    TestCasePhase.HANDSHAKE_EXECUTION,
+                                    Math.max(
+                                            0,
+                                            executedTask.getExecutionNanos()
+                                                    - transportInitNanos));
+                            postExecution(executedTask, tlsTestCase);
+                            return tlsTestCase;
+                        });
+    }
+
+    /**
+     * Executes a WorkflowTrace without blocking the calling thread and validates the result
+     * using {@link TlsTestCase#validateFinal(Consumer)} once the handshake has been executed.
+     *
+     * @param trace Trace to execute
+     * @param config TLS-Attacker Config to be used for execution
+     * @param validateFunction validation applied to the executed TlsTestCase
+     * @return future completed with the validated TlsTestCase
+     */
+    public CompletableFuture<TlsTestCase> executeAsync(
+            WorkflowTrace trace, Config config, Consumer<TlsTestCase> validateFunction) {
+        return executeAsync(trace, config)
+                .thenApply(
+                        testCase -> {
+                            testCase.validateFinal(validateFunction);
+                            return testCase;
+                        });
+    }
+
+    private void submitTask(CompletableStateExecutionTask task) {
+        AdaptiveConcurrencyController concurrencyController = context.getConcurrencyController();
+        ServerRestartCoordinator restartCoordinator = context.getServerRestartCoordinator();
+        // each execution, including reexecutions, occupies a slot of the controller and has to
+        // be admitted by the coordinator, so no reexecution runs while the server restarts
+        task.setExecutionListener(
+                executedTask -> {
+                    if (concurrencyController != null) {
+                        concurrencyController.onCompletion(
+                                executedTask.getLastExecutionMillis(),
+                                executedTask.indicatesCongestion());
+                    }
+                    if (restartCoordinator != null) {
+                        restartCoordinator.onCompletion();
+                    }
+                });
+        submitExecution(task);
+    }
+
+    /** Hands a single execution of the task to the state executor. */
+    private void submitExecution(CompletableStateExecutionTask task) {
+        AdaptiveConcurrencyController concurrencyController = context.getConcurrencyController();
+        Runnable submission;
+        if (concurrencyController == null) {
+            submission = () -> context.getStateExecutor().addTask(task);
+        } else {
+            submission =
+                    () ->
+                            concurrencyController.submit(
+                                    () -> context.getStateExecutor().addTask(task));
+        }
+        ServerRestartCoordinator restartCoordinator = context.getServerRestartCoordinator();
+        if (restartCoordinator == null) {
+            submission.run();
+        } else {
+            restartCoordinator.submit(submission);
+        }
+    }
+
+    private String getTemplateId() {
+        return Utils.getTemplateContainerExtensionContext(extensionContext).getUniqueId();
+    }
+
+    private void recordMetrics(CompletableStateExecutionTask task) {
+        State state = task.getState();
+        context.getRunMetrics()
+                .recordHandshake(
+                        tlsTestCase.getTemplateName(),
+                        task.getReexecutionCount(),
+                        state.getTcpContext().getFinalSocketState() == SocketState.TIMEOUT,
+                        state.getTlsContext().isReceivedTransportHandlerException());
     }
 
     private void setPortCallback(StateExecutionTask task, TlsTestCase tlsTestCase) {
@@ -203,14 +359,19 @@ public class WorkflowRunner {
     }
 
     public void prepareServerTask(StateExecutionTask task) {
-        TestContext.getInstance().increaseServerHandshakesSinceRestart();
-        if (TestContext.getInstance().getServerHandshakesSinceRestart()
+        if (context.getServerRestartCoordinator() != null) {
+            // restarts are scheduled by the coordinator upon submission
+            context.increaseServerHandshakesSinceRestart();
+            return;
+        }
+        if (TestContext.getInstance().increaseAndGetServerHandshakesSinceRestart()
                         == TestContext.getInstance()
                                 .getConfig()
                                 .getAnvilTestConfig()
                                 .getRestartServerAfter()
                 && TestContext.getInstance().getConfig().getTimeoutActionScript() != null) {
             LOGGER.info("Scheduling server restart with task");
+            TestContext.getInstance().getRunMetrics().recordServerRestart();
             task.setBeforeTransportPreInitCallback(
                     (State state) -> {
                         try {
@@ -236,8 +397,21 @@ public class WorkflowRunner {
                 setServerTcpTransportHandler();
             }
 
-            task.setBeforeTransportInitCallback(
-                    context.getConfig().getTestClientDelegate().getTriggerScript());
+            Function<State, Integer> triggerScript =
+                    context.getConfig().getTestClientDelegate().getTriggerScript();
+            if (triggerScript != null) {
+                task.setBeforeTransportInitCallback(
+                        (State state) -> {
+                            long triggerStart = System.nanoTime();
+                            try {
+                                return triggerScript.apply(state);
+                            } finally {
+                                tlsTestCase.recordPhaseDuration(
+                                        TestCasePhase.TRANSPORT_INIT,
+                                        System.nanoTime() - triggerStart);
+                            }
+                        });
+            }
         } catch (IOException ex) {
             throw new RuntimeException("Failed to set TransportHandler");
         }
@@ -251,21 +425,49 @@ public class WorkflowRunner {
      * @param task The StateExecutionTask in preparation for execution
      */
     private void setReexecutionCallback(StateExecutionTask task) {
-        task.setBeforeReexecutionCallback(
-                state -> {
-                    ServerUdpTransportHandler udpTransportHandler =
-                            (ServerUdpTransportHandler) state.getTlsContext().getTransportHandler();
-                    try {
-                        if (udpTransportHandler.isInitialized()
-                                && !udpTransportHandler.isClosed()) {
-                            udpTransportHandler.closeConnection();
-                        }
-                    } catch (IOException ex) {
-                        LOGGER.error(ex);
-                        return 1;
-                    }
-                    return 0;
-                });
+        task.setBeforeReexecutionCallback(this::closeServerUdpTransportHandler);
+    }
+
+    private int closeServerUdpTransportHandler(State state) {
+        ServerUdpTransportHandler udpTransportHandler =
+                (ServerUdpTransportHandler) state.getTlsContext().getTransportHandler();
+        try {
+            if (udpTransportHandler.isInitialized() && !udpTransportHandler.isClosed()) {
+                udpTransportHandler.closeConnection();
+            }
+        } catch (IOException ex) {
+            LOGGER.error(ex);
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Resets a task that is reexecuted according to the ReexecutionPolicy. A scheduled server
+     * restart is not repeated and the transport handler accepting the client's connection is set
+     * up again.
+     *
+     * @param task the task that will be resubmitted
+     */
+    private void prepareReexecution(CompletableStateExecutionTask task) {
+        boolean clientTest = context.getConfig().getTestEndpointMode() == TestEndpointType.CLIENT;
+        if (clientTest && context.getConfig().isUseDTLS()) {
+            closeServerUdpTransportHandler(task.getState());
+        } else if (!clientTest) {
+            task.setBeforeTransportPreInitCallback(null);
+        }
+        task.reset();
+        if (clientTest) {
+            try {
+                if (context.getConfig().isUseDTLS()) {
+                    setServerUdpTransportHandler();
+                } else {
+                    setServerTcpTransportHandler();
+                }
+            } catch (IOException ex) {
+                throw new RuntimeException("Failed to set TransportHandler");
+            }
+        }
     }
 
     public void setServerTcpTransportHandler() throws IOException {
@@ -299,6 +501,33 @@ public class WorkflowRunner {
      * @return empty WorkflowTrace
      */
     public WorkflowTrace generateWorkflowTrace(@Nonnull WorkflowTraceType type) {
+        long generationStart = System.nanoTime();
+        try {
+            return generateOrCopyWorkflowTrace(type);
+        } finally {
+            tlsTestCase.recordPhaseDuration(
+                    TestCasePhase.TRACE_GENERATION, System.nanoTime() - generationStart);
+        }
+    }
+
+    private WorkflowTrace generateOrCopyWorkflowTrace(WorkflowTraceType type) {
+        if (context.getConfig().isCacheWorkflowTraces()) {
+            return WorkflowTraceTemplateCache.getInstance()
+                    .getTrace(
+                            preparedConfig,
+                            context.getConfig().getTestEndpointMode(),
+                            Arrays.asList(
+                                    type,
+                                    untilHandshakeMessage,
+                                    untilProtocolMessage,
+                                    untilSendingMessage,
+                                    untilLast),
+                            () -> createWorkflowTrace(type));
+        }
+        return createWorkflowTrace(type);
+    }
+
+    private WorkflowTrace createWorkflowTrace(WorkflowTraceType type) {
         RunningModeType runningMode = resolveRunningMode(context.getConfig().getTestEndpointMode());
         WorkflowTrace trace =
                 new WorkflowConfigurationFactory(preparedConfig)
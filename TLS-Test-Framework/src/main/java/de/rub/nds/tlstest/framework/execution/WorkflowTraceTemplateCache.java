@@ -0,0 +1,134 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import de.rub.nds.anvilcore.constants.TestEndpointType;
+import de.rub.nds.tlsattacker.core.config.Config;
+import de.rub.nds.tlsattacker.core.config.ConfigIO;
+import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Caches WorkflowTraces generated by the WorkflowConfigurationFactory. A template is identified by
+ * the requested WorkflowTraceType, the specification of the message the trace is truncated at,
+ * the endpoint mode and a fingerprint of the Config used to generate it. Callers always receive a
+ * copy of the template, hence cached templates are never modified.
+ *
+ * <p>The WorkflowConfigurationFactory and the constructors of the messages it adds read many
+ * Config values, such as the key share groups or the PSK sets. The fingerprint is therefore the
+ * SHA-256 digest of the complete serialized Config, which is also what {@link Config#createCopy()}
+ * preserves, rather than a selection of properties that would silently become incomplete.
+ */
+public class WorkflowTraceTemplateCache {
+
+    private static final int MAX_TEMPLATES = 512;
+    private static final WorkflowTraceTemplateCache INSTANCE = new WorkflowTraceTemplateCache();
+
+    // least recently used templates are evicted first
+    private final Map<List<Object>, WorkflowTrace> templates =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, WorkflowTrace> eldest) {
+                    return size() > MAX_TEMPLATES;
+                }
+            };
+    // a ReentrantLock does not pin the carrier thread when running on virtual threads
+    private final ReentrantLock templatesLock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public static WorkflowTraceTemplateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a copy of the cached template matching the given key or generates, caches and
+     * returns a copy of a new template.
+     *
+     * @param config Config the trace is generated from
+     * @param endpointMode endpoint mode of the test run
+     * @param traceSpecification objects identifying the trace for the given Config, such as the
+     *     WorkflowTraceType and truncation parameters
+     * @param generator generates the trace if no template is cached yet
+     * @return a WorkflowTrace that may be modified by the caller
+     */
+    public WorkflowTrace getTrace(
+            Config config,
+            TestEndpointType endpointMode,
+            List<Object> traceSpecification,
+            Supplier<WorkflowTrace> generator) {
+        List<Object> key = new ArrayList<>(traceSpecification.size() + 2);
+        key.add(endpointMode);
+        key.addAll(traceSpecification);
+        key.add(fingerprint(config));
+
+        WorkflowTrace template = getTemplate(key);
+        if (template == null) {
+            misses.incrementAndGet();
+            // generated without holding the lock, concurrent callers may generate the same
+            // template, which is harmless as only one of them is kept
+            template = generator.get();
+            templatesLock.lock();
+            try {
+                templates.putIfAbsent(key, template);
+            } finally {
+                templatesLock.unlock();
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+        return WorkflowTrace.copy(template);
+    }
+
+    private static ByteBuffer fingerprint(Config config) {
+        ByteArrayOutputStream serializedConfig = new ByteArrayOutputStream();
+        ConfigIO.write(config, serializedConfig);
+        try {
+            return ByteBuffer.wrap(
+                    MessageDigest.getInstance("SHA-256").digest(serializedConfig.toByteArray()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private WorkflowTrace getTemplate(List<Object> key) {
+        templatesLock.lock();
+        try {
+            return templates.get(key);
+        } finally {
+            templatesLock.unlock();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public void clear() {
+        templatesLock.lock();
+        try {
+            templates.clear();
+        } finally {
+            templatesLock.unlock();
+        }
+    }
+}
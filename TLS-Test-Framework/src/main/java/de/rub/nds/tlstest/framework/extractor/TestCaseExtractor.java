@@ -14,6 +14,7 @@ import de.rub.nds.anvilcore.junit.extension.EndpointConditionExtension;
 import de.rub.nds.anvilcore.teststate.reporting.MetadataFetcher;
 import de.rub.nds.tlstest.framework.TestContext;
 import de.rub.nds.tlstest.framework.annotations.EnforcedSenderRestriction;
+import de.rub.nds.tlstest.framework.index.TestIndex;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -47,9 +48,7 @@ public class TestCaseExtractor {
 
         fetcher = new MetadataFetcher();
 
-        Reflections reflections = new Reflections(packageName, new MethodAnnotationsScanner());
-        Set<Method> testMethodsRaw = reflections.getMethodsAnnotatedWith(AnvilTest.class);
-        testMethodsRaw.addAll(reflections.getMethodsAnnotatedWith(NonCombinatorialAnvilTest.class));
+        Set<Method> testMethodsRaw = findTestMethods();
 
         Set<ExtractionMethod> testMethods =
                 testMethodsRaw.stream()
@@ -181,6 +180,27 @@ public class TestCaseExtractor {
         }
     }
 
+    private Set<Method> findTestMethods() {
+        ClassLoader classLoader = TestCaseExtractor.class.getClassLoader();
+        TestIndex testIndex = TestIndex.load(classLoader);
+        if (testIndex != null) {
+            try {
+                return testIndex.resolveTestMethods(
+                        packageName,
+                        classLoader,
+                        List.of(AnvilTest.class, NonCombinatorialAnvilTest.class));
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Test index does not match the test suite, scanning the classpath", e);
+            }
+        } else {
+            LOGGER.debug("No test index found, scanning the classpath");
+        }
+        Reflections reflections = new Reflections(packageName, new MethodAnnotationsScanner());
+        Set<Method> testMethods = reflections.getMethodsAnnotatedWith(AnvilTest.class);
+        testMethods.addAll(reflections.getMethodsAnnotatedWith(NonCombinatorialAnvilTest.class));
+        return testMethods;
+    }
+
     private void printTestsWithoutQuote(
             Set<ExtractionMethod> testMethods, Set<ExtractionMethod> testsWithQuotesFound) {
         Set<ExtractionMethod> testsWithoutQuote = new HashSet<>(testMethods);
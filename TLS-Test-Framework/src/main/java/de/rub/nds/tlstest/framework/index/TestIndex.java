@@ -0,0 +1,273 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.index;
+
+import de.rub.nds.tlstest.framework.utils.ClassConstantPool;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Index of all test templates, written by the {@link TestIndexProcessor} when the test suite is
+ * compiled. Reading the index avoids scanning the classpath for test methods at runtime.
+ *
+ * <p>Each line of the index describes one test template as tab separated columns.
+ */
+public class TestIndex {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public static final String RESOURCE = "META-INF/tls-anvil/test-index.tsv";
+    static final String HEADER = "# TLS-Anvil test index v2";
+
+    private static final String COLUMN_SEPARATOR = "\t";
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    private static final int COLUMNS = 2;
+
+    private final List<Entry> entries;
+
+    TestIndex(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Loads the index from the classpath.
+     *
+     * @param classLoader the class loader of the test suite
+     * @return the index or null if the test suite was compiled without the index or the index is
+     *     unreadable
+     */
+    public static TestIndex load(ClassLoader classLoader) {
+        InputStream input = classLoader.getResourceAsStream(RESOURCE);
+        if (input == null) {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            return read(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Failed to read the test index", e);
+            return null;
+        }
+    }
+
+    static TestIndex read(Reader reader) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String header = bufferedReader.readLine();
+        if (!HEADER.equals(header)) {
+            throw new IllegalArgumentException("Unsupported test index format " + header);
+        }
+        List<Entry> entries = new ArrayList<>();
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                entries.add(Entry.parse(line));
+            }
+        }
+        return new TestIndex(entries);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @param packageName the package to search
+     * @return the entries of all test templates within the package or its subpackages
+     */
+    public List<Entry> getEntries(String packageName) {
+        String prefix = packageName + ".";
+        return entries.stream()
+                .filter(entry -> entry.getClassName().startsWith(prefix))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads the test methods of all test templates within the package or its subpackages. Each
+     * class of the index is validated against its declared test methods, so an index that was
+     * written before tests were added to the class, e.g. by a compilation of a single class, is
+     * rejected. Likewise, the index is rejected if a class of the package that is not listed
+     * declares test methods. The class files of the package are inspected for this without
+     * loading the classes.
+     *
+     * @param packageName the package to search
+     * @param classLoader the class loader of the test suite
+     * @param testAnnotations the annotations marking test methods
+     * @return the test methods
+     * @throws ReflectiveOperationException if the index does not match the test suite
+     */
+    public Set<Method> resolveTestMethods(
+            String packageName,
+            ClassLoader classLoader,
+            Collection<Class<? extends Annotation>> testAnnotations)
+            throws ReflectiveOperationException {
+        Map<String, Set<String>> indexedMethods = new HashMap<>();
+        for (Entry entry : getEntries(packageName)) {
+            indexedMethods
+                    .computeIfAbsent(entry.getClassName(), className -> new HashSet<>())
+                    .add(entry.getMethodName());
+        }
+        Set<Method> testMethods = new HashSet<>();
+        for (Map.Entry<String, Set<String>> indexedClass : indexedMethods.entrySet()) {
+            Class<?> testClass = Class.forName(indexedClass.getKey(), false, classLoader);
+            Set<String> declaredMethods = new HashSet<>();
+            for (Method method : testClass.getDeclaredMethods()) {
+                if (!method.isSynthetic()
+                        && testAnnotations.stream().anyMatch(method::isAnnotationPresent)) {
+                    declaredMethods.add(method.getName());
+                    testMethods.add(method);
+                }
+            }
+            if (!declaredMethods.equals(indexedClass.getValue())) {
+                throw new ReflectiveOperationException(
+                        "Test index does not list the test methods of " + indexedClass.getKey());
+            }
+        }
+
+        Set<String> annotationDescriptors =
+                testAnnotations.stream()
+                        .map(annotation -> "L" + annotation.getName().replace('.', '/') + ";")
+                        .collect(Collectors.toSet());
+        try {
+            for (String className : listClassNames(packageName, classLoader)) {
+                if (!indexedMethods.containsKey(className)
+                        && declaresTestMethods(className, classLoader, annotationDescriptors)) {
+                    throw new ReflectiveOperationException(
+                            "Test index does not list the test methods of " + className);
+                }
+            }
+        } catch (IOException e) {
+            throw new ReflectiveOperationException("Failed to list the classes of the package", e);
+        }
+        return testMethods;
+    }
+
+    private static boolean declaresTestMethods(
+            String className, ClassLoader classLoader, Set<String> annotationDescriptors)
+            throws IOException {
+        try (InputStream classFile =
+                classLoader.getResourceAsStream(
+                        className.replace('.', '/') + CLASS_FILE_SUFFIX)) {
+            if (classFile == null) {
+                throw new IOException("Class file of " + className + " not found");
+            }
+            // annotations are referred to by their descriptor
+            return ClassConstantPool.read(classFile).getUtf8Constants().stream()
+                    .anyMatch(annotationDescriptors::contains);
+        }
+    }
+
+    /**
+     * @param packageName the package to search
+     * @param classLoader the class loader of the test suite
+     * @return the binary names of all classes within the package or its subpackages
+     * @throws IOException if a location of the package can not be listed
+     */
+    static Set<String> listClassNames(String packageName, ClassLoader classLoader)
+            throws IOException {
+        String packagePath = packageName.replace('.', '/') + "/";
+        Set<String> classNames = new HashSet<>();
+        Enumeration<URL> locations = classLoader.getResources(packagePath);
+        while (locations.hasMoreElements()) {
+            URL location = locations.nextElement();
+            if ("file".equals(location.getProtocol())) {
+                Path directory;
+                try {
+                    directory = Paths.get(location.toURI());
+                } catch (URISyntaxException e) {
+                    throw new IOException("Unsupported location " + location, e);
+                }
+                try (Stream<Path> files = Files.walk(directory)) {
+                    files.map(file -> directory.relativize(file).toString().replace('\\', '/'))
+                            .filter(file -> file.endsWith(CLASS_FILE_SUFFIX))
+                            .forEach(file -> classNames.add(toClassName(packagePath + file)));
+                }
+            } else if ("jar".equals(location.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) location.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jarFile = connection.getJarFile()) {
+                    Enumeration<JarEntry> jarEntries = jarFile.entries();
+                    while (jarEntries.hasMoreElements()) {
+                        String name = jarEntries.nextElement().getName();
+                        if (name.startsWith(packagePath) && name.endsWith(CLASS_FILE_SUFFIX)) {
+                            classNames.add(toClassName(name));
+                        }
+                    }
+                }
+            } else {
+                throw new IOException("Unsupported location " + location);
+            }
+        }
+        return classNames;
+    }
+
+    private static String toClassName(String classFile) {
+        return classFile
+                .substring(0, classFile.length() - CLASS_FILE_SUFFIX.length())
+                .replace('/', '.');
+    }
+
+    /** A single test template of the index. */
+    public static class Entry {
+        private final String className;
+        private final String methodName;
+
+        /**
+         * @param className the binary name of the class declaring the test
+         * @param methodName the name of the test method
+         */
+        public Entry(String className, String methodName) {
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        static Entry parse(String line) {
+            String[] columns = line.split(COLUMN_SEPARATOR, -1);
+            if (columns.length != COLUMNS) {
+                throw new IllegalArgumentException("Malformed test index entry " + line);
+            }
+            return new Entry(columns[0], columns[1]);
+        }
+
+        String toLine() {
+            return String.join(COLUMN_SEPARATOR, className, methodName);
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+    }
+}
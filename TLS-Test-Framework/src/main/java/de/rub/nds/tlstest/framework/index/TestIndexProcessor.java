@@ -0,0 +1,154 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.index;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes the {@link TestIndex} while the test suite is compiled. The processor is registered as a
+ * service and runs for every compilation that has the framework on its processor path.
+ *
+ * <p>Annotations are matched by name, hence the processor does not load any classes of the test
+ * suite or its dependencies. A compilation may only cover some classes of the test suite, e.g.
+ * when an IDE recompiles changed files. Entries of the previous index are therefore retained for
+ * all classes that were not compiled again and still exist.
+ */
+@SupportedAnnotationTypes({
+    TestIndexProcessor.ANVIL_TEST,
+    TestIndexProcessor.NON_COMBINATORIAL_TEST
+})
+public class TestIndexProcessor extends AbstractProcessor {
+
+    static final String ANVIL_TEST = "de.rub.nds.anvilcore.annotation.AnvilTest";
+    static final String NON_COMBINATORIAL_TEST =
+            "de.rub.nds.anvilcore.annotation.NonCombinatorialAnvilTest";
+
+    private final List<TestIndex.Entry> entries = new ArrayList<>();
+    private final Set<String> compiledClasses = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element rootElement : roundEnv.getRootElements()) {
+            addCompiledClasses(rootElement);
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    entries.add(createEntry((ExecutableElement) element));
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void addCompiledClasses(Element element) {
+        if (element instanceof TypeElement) {
+            compiledClasses.add(getBinaryName((TypeElement) element));
+            for (Element enclosedElement : element.getEnclosedElements()) {
+                addCompiledClasses(enclosedElement);
+            }
+        }
+    }
+
+    private TestIndex.Entry createEntry(ExecutableElement method) {
+        return new TestIndex.Entry(
+                getBinaryName((TypeElement) method.getEnclosingElement()),
+                method.getSimpleName().toString());
+    }
+
+    private String getBinaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    /** Reads the entries of the index written by a previous compilation, if any. */
+    private List<TestIndex.Entry> readPreviousEntries() {
+        try {
+            FileObject resource =
+                    processingEnv
+                            .getFiler()
+                            .getResource(StandardLocation.CLASS_OUTPUT, "", TestIndex.RESOURCE);
+            try (Reader reader =
+                    new InputStreamReader(resource.openInputStream(), StandardCharsets.UTF_8)) {
+                return TestIndex.read(reader).getEntries();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // no previous index or one of an older format
+            return List.of();
+        }
+    }
+
+    private boolean exists(String className) {
+        return processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'))
+                != null;
+    }
+
+    private void writeIndex() {
+        // sorted to keep the index reproducible
+        Map<String, TestIndex.Entry> sortedEntries = new TreeMap<>();
+        for (TestIndex.Entry entry : readPreviousEntries()) {
+            if (!compiledClasses.contains(entry.getClassName()) && exists(entry.getClassName())) {
+                sortedEntries.put(entry.getClassName() + "#" + entry.getMethodName(), entry);
+            }
+        }
+        for (TestIndex.Entry entry : entries) {
+            sortedEntries.put(entry.getClassName() + "#" + entry.getMethodName(), entry);
+        }
+        if (sortedEntries.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject resource =
+                    processingEnv
+                            .getFiler()
+                            .createResource(StandardLocation.CLASS_OUTPUT, "", TestIndex.RESOURCE);
+            try (Writer writer = resource.openWriter()) {
+                writer.write(TestIndex.HEADER);
+                writer.write('\n');
+                for (TestIndex.Entry entry : sortedEntries.values()) {
+                    writer.write(entry.toLine());
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv
+                    .getMessager()
+                    .printMessage(
+                            Diagnostic.Kind.ERROR,
+                            "Failed to write the test index: " + e.getMessage());
+        }
+    }
+}
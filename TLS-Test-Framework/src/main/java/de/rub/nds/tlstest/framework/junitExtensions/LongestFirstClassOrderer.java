@@ -0,0 +1,67 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.junitExtensions;
+
+import de.rub.nds.tlstest.framework.TestContext;
+import de.rub.nds.tlstest.framework.statistics.TemplateDurationHistory;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+
+/**
+ * Orders test classes by the duration of their templates measured in previous runs, longest
+ * first. Since test classes are executed concurrently, starting long running classes early
+ * prevents a single long class from extending the run while the other workers are idle. Classes
+ * without measurements are assumed to take the average duration of the measured classes. The
+ * discovery order is kept if no history is configured.
+ */
+public class LongestFirstClassOrderer implements ClassOrderer {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        TemplateDurationHistory history = TestContext.getInstance().getTemplateDurationHistory();
+        if (history == null || history.getTemplates().isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> classDurations = new HashMap<>();
+        long measuredDurations = 0;
+        int measuredClasses = 0;
+        for (ClassDescriptor descriptor : context.getClassDescriptors()) {
+            String className = descriptor.getTestClass().getName();
+            long duration = history.getClassDurationMillis(className);
+            classDurations.put(className, duration);
+            if (duration >= 0) {
+                measuredDurations += duration;
+                measuredClasses++;
+            }
+        }
+        long defaultDuration = measuredClasses > 0 ? measuredDurations / measuredClasses : 0;
+        classDurations.replaceAll(
+                (className, duration) -> duration >= 0 ? duration : defaultDuration);
+
+        // the sort is stable, classes with equal durations keep their discovery order
+        context.getClassDescriptors()
+                .sort(
+                        Comparator.comparingLong(
+                                        (ClassDescriptor descriptor) ->
+                                                classDurations.get(
+                                                        descriptor.getTestClass().getName()))
+                                .reversed());
+        LOGGER.debug(
+                "Ordered {} test classes by their previous durations ({} measured)",
+                classDurations.size(),
+                measuredClasses);
+    }
+}
@@ -15,61 +15,94 @@ import de.rub.nds.tlstest.framework.anvil.BitPositionParameterScope;
 import de.rub.nds.tlstest.framework.model.derivationParameter.*;
 import de.rub.nds.tlstest.framework.model.derivationParameter.keyexchange.dhe.ShareOutOfBoundsDerivation;
 import de.rub.nds.tlstest.framework.model.derivationParameter.mirrored.MirroredCipherSuiteDerivation;
-import java.lang.reflect.InvocationTargetException;
+import java.util.function.Supplier;
 
 /** Represents the properties affected by the test derivation models. */
 public enum TlsParameterType implements ParameterType {
-    CIPHER_SUITE(CipherSuiteDerivation.class),
-    NAMED_GROUP(NamedGroupDerivation.class),
-    MAC_BITMASK(MacBitmaskDerivation.class),
-    ALERT(AlertDerivation.class),
-    RECORD_LENGTH(RecordLengthDerivation.class),
-    TCP_FRAGMENTATION(TcpFragmentationDerivation.class),
-    CIPHERTEXT_BITMASK(CipherTextBitmaskDerivation.class),
-    AUTH_TAG_BITMASK(AuthTagBitmaskDerivation.class),
-    APP_MSG_LENGHT(AppMsgLengthDerivation.class),
-    PADDING_BITMASK(PaddingBitmaskDerivation.class),
-    INVALID_CCS_CONTENT(InvalidCCSContentDerivation.class),
-    PRF_BITMASK(PRFBitmaskDerivation.class),
-    GREASE_CIPHERSUITE(GreaseCipherSuiteDerivation.class),
-    GREASE_PROTOCOL_VERSION(GreaseProtocolVersionDerivation.class),
-    GREASE_EXTENSION(GreaseExtensionDerivation.class),
-    GREASE_NAMED_GROUP(GreaseNamedGroupDerivation.class),
-    GREASE_SIG_HASH(GreaseSigHashDerivation.class),
-    PROTOCOL_VERSION(ProtocolVersionDerivation.class),
-    SIG_HASH_ALGORIHTM(SigAndHashDerivation.class),
-    EXTENSION(ExtensionDerivation.class),
-    CHOSEN_HANDSHAKE_MSG(ChosenHandshakeMessageDerivation.class),
-    MIRRORED_CIPHERSUITE(MirroredCipherSuiteDerivation.class),
-    CERTIFICATE(CertificateDerivation.class),
-    SIGNATURE_BITMASK(SignatureBitmaskDerivation.class),
+    CIPHER_SUITE(CipherSuiteDerivation.class, CipherSuiteDerivation::new),
+    NAMED_GROUP(NamedGroupDerivation.class, NamedGroupDerivation::new),
+    MAC_BITMASK(MacBitmaskDerivation.class, MacBitmaskDerivation::new),
+    ALERT(AlertDerivation.class, AlertDerivation::new),
+    RECORD_LENGTH(RecordLengthDerivation.class, RecordLengthDerivation::new),
+    TCP_FRAGMENTATION(TcpFragmentationDerivation.class, TcpFragmentationDerivation::new),
+    CIPHERTEXT_BITMASK(CipherTextBitmaskDerivation.class, CipherTextBitmaskDerivation::new),
+    AUTH_TAG_BITMASK(AuthTagBitmaskDerivation.class, AuthTagBitmaskDerivation::new),
+    APP_MSG_LENGHT(AppMsgLengthDerivation.class, AppMsgLengthDerivation::new),
+    PADDING_BITMASK(PaddingBitmaskDerivation.class, PaddingBitmaskDerivation::new),
+    INVALID_CCS_CONTENT(InvalidCCSContentDerivation.class, InvalidCCSContentDerivation::new),
+    PRF_BITMASK(PRFBitmaskDerivation.class, PRFBitmaskDerivation::new),
+    GREASE_CIPHERSUITE(GreaseCipherSuiteDerivation.class, GreaseCipherSuiteDerivation::new),
+    GREASE_PROTOCOL_VERSION(
+            GreaseProtocolVersionDerivation.class, GreaseProtocolVersionDerivation::new),
+    GREASE_EXTENSION(GreaseExtensionDerivation.class, GreaseExtensionDerivation::new),
+    GREASE_NAMED_GROUP(GreaseNamedGroupDerivation.class, GreaseNamedGroupDerivation::new),
+    GREASE_SIG_HASH(GreaseSigHashDerivation.class, GreaseSigHashDerivation::new),
+    PROTOCOL_VERSION(ProtocolVersionDerivation.class, ProtocolVersionDerivation::new),
+    SIG_HASH_ALGORIHTM(SigAndHashDerivation.class, SigAndHashDerivation::new),
+    EXTENSION(ExtensionDerivation.class, ExtensionDerivation::new),
+    CHOSEN_HANDSHAKE_MSG(
+            ChosenHandshakeMessageDerivation.class, ChosenHandshakeMessageDerivation::new),
+    MIRRORED_CIPHERSUITE(MirroredCipherSuiteDerivation.class, MirroredCipherSuiteDerivation::new),
+    CERTIFICATE(CertificateDerivation.class, CertificateDerivation::new),
+    SIGNATURE_BITMASK(SignatureBitmaskDerivation.class, SignatureBitmaskDerivation::new),
     BIT_POSITION(BitPositionDerivation.class),
-    INCLUDE_RENEGOTIATION_EXTENSION(IncludeRenegotiationExtensionDerivation.class),
-    INCLUDE_EXTENDED_MASTER_SECRET_EXTENSION(IncludeExtendedMasterSecretExtensionDerivation.class),
-    INCLUDE_PADDING_EXTENSION(IncludePaddingExtensionDerivation.class),
-    INCLUDE_ENCRYPT_THEN_MAC_EXTENSION(IncludeEncryptThenMacExtensionDerivation.class),
-    INCLUDE_ALPN_EXTENSION(IncludeALPNExtensionDerivation.class),
-    INCLUDE_HEARTBEAT_EXTENSION(IncludeHeartbeatExtensionDerivation.class),
-    INCLUDE_CHANGE_CIPHER_SPEC(IncludeChangeCipherSpecDerivation.class),
-    INCLUDE_PSK_EXCHANGE_MODES_EXTENSION(IncludePSKExchangeModesExtensionDerivation.class),
-    INCLUDE_SESSION_TICKET_EXTENSION(IncludeSessionTicketExtensionDerivation.class),
-    INCLUDE_GREASE_CIPHER_SUITES(IncludeGreaseCipherSuitesDerivation.class),
-    INCLUDE_GREASE_SIG_HASH_ALGORITHMS(IncludeGreaseSigHashDerivation.class),
-    INCLUDE_GREASE_NAMED_GROUPS(IncludeGreaseNamedGroupsDerivation.class),
-    ADDITIONAL_PADDING_LENGTH(AdditionalPaddingLengthDerivation.class),
-    COMPRESSION_METHOD(CompressionMethodDerivation.class),
-    PROTOCOL_MESSAGE_TYPE(ProtocolMessageTypeDerivation.class),
-    FFDHE_SHARE_OUT_OF_BOUNDS(ShareOutOfBoundsDerivation.class),
-    MAX_FRAGMENT_LENGTH(MaxFragmentLengthDerivation.class),
-    HELLO_RETRY_COOKIE(HelloRetryCookieDerivation.class),
-    COOKIE_EXCHANGE(CookieExchangeDerivation.class),
-    DTLS_COOKIE_BITMASK(DtlsCookieBitmaskDerivation.class);
+    INCLUDE_RENEGOTIATION_EXTENSION(
+            IncludeRenegotiationExtensionDerivation.class,
+            IncludeRenegotiationExtensionDerivation::new),
+    INCLUDE_EXTENDED_MASTER_SECRET_EXTENSION(
+            IncludeExtendedMasterSecretExtensionDerivation.class,
+            IncludeExtendedMasterSecretExtensionDerivation::new),
+    INCLUDE_PADDING_EXTENSION(
+            IncludePaddingExtensionDerivation.class, IncludePaddingExtensionDerivation::new),
+    INCLUDE_ENCRYPT_THEN_MAC_EXTENSION(
+            IncludeEncryptThenMacExtensionDerivation.class,
+            IncludeEncryptThenMacExtensionDerivation::new),
+    INCLUDE_ALPN_EXTENSION(
+            IncludeALPNExtensionDerivation.class, IncludeALPNExtensionDerivation::new),
+    INCLUDE_HEARTBEAT_EXTENSION(
+            IncludeHeartbeatExtensionDerivation.class, IncludeHeartbeatExtensionDerivation::new),
+    INCLUDE_CHANGE_CIPHER_SPEC(
+            IncludeChangeCipherSpecDerivation.class, IncludeChangeCipherSpecDerivation::new),
+    INCLUDE_PSK_EXCHANGE_MODES_EXTENSION(
+            IncludePSKExchangeModesExtensionDerivation.class,
+            IncludePSKExchangeModesExtensionDerivation::new),
+    INCLUDE_SESSION_TICKET_EXTENSION(
+            IncludeSessionTicketExtensionDerivation.class,
+            IncludeSessionTicketExtensionDerivation::new),
+    INCLUDE_GREASE_CIPHER_SUITES(
+            IncludeGreaseCipherSuitesDerivation.class, IncludeGreaseCipherSuitesDerivation::new),
+    INCLUDE_GREASE_SIG_HASH_ALGORITHMS(
+            IncludeGreaseSigHashDerivation.class, IncludeGreaseSigHashDerivation::new),
+    INCLUDE_GREASE_NAMED_GROUPS(
+            IncludeGreaseNamedGroupsDerivation.class, IncludeGreaseNamedGroupsDerivation::new),
+    ADDITIONAL_PADDING_LENGTH(
+            AdditionalPaddingLengthDerivation.class, AdditionalPaddingLengthDerivation::new),
+    COMPRESSION_METHOD(CompressionMethodDerivation.class, CompressionMethodDerivation::new),
+    PROTOCOL_MESSAGE_TYPE(ProtocolMessageTypeDerivation.class, ProtocolMessageTypeDerivation::new),
+    FFDHE_SHARE_OUT_OF_BOUNDS(ShareOutOfBoundsDerivation.class, ShareOutOfBoundsDerivation::new),
+    MAX_FRAGMENT_LENGTH(MaxFragmentLengthDerivation.class, MaxFragmentLengthDerivation::new),
+    HELLO_RETRY_COOKIE(HelloRetryCookieDerivation.class, HelloRetryCookieDerivation::new),
+    COOKIE_EXCHANGE(CookieExchangeDerivation.class, CookieExchangeDerivation::new),
+    DTLS_COOKIE_BITMASK(DtlsCookieBitmaskDerivation.class, DtlsCookieBitmaskDerivation::new);
 
     TlsParameterType(Class<? extends DerivationParameter> derivationClass) {
+        this(derivationClass, null);
+    }
+
+    TlsParameterType(
+            Class<? extends DerivationParameter> derivationClass,
+            Supplier<? extends DerivationParameter> factory) {
         this.derivationClass = derivationClass;
+        this.factory = factory;
     }
 
-    private Class<? extends DerivationParameter> derivationClass;
+    private final Class<? extends DerivationParameter> derivationClass;
+    // creates unscoped instances without reflection, null if the derivation requires a scope
+    private final Supplier<? extends DerivationParameter> factory;
+
+    public Class<? extends DerivationParameter> getDerivationClass() {
+        return derivationClass;
+    }
 
     public boolean isBitmaskDerivation() {
         return this.name().contains("BITMASK");
@@ -78,14 +111,11 @@ public enum TlsParameterType implements ParameterType {
     @Override
     public DerivationParameter getInstance(ParameterScope parameterScope) {
         if (parameterScope == ParameterScope.NO_SCOPE) {
-            try {
-                return derivationClass.getDeclaredConstructor().newInstance();
-            } catch (InstantiationException
-                    | IllegalAccessException
-                    | InvocationTargetException
-                    | NoSuchMethodException e) {
-                throw new RuntimeException(e);
+            if (factory == null) {
+                throw new IllegalArgumentException(
+                        "ParameterType " + this + " can not be used without a ParameterScope.");
             }
+            return factory.get();
         } else if (parameterScope instanceof BitPositionParameterScope) {
             if (!parameterScope.getUniqueScopeIdentifier().contains("BITMASK")) {
                 throw new IllegalArgumentException(
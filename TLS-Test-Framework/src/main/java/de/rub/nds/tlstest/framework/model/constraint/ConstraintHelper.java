@@ -25,12 +25,10 @@ import de.rub.nds.tlsattacker.core.crypto.keys.CustomDSAPrivateKey;
 import de.rub.nds.tlstest.framework.constants.KeyExchangeType;
 import de.rub.nds.tlstest.framework.constants.KeyX;
 import de.rub.nds.tlstest.framework.model.TlsParameterType;
-import de.rub.nds.tlstest.framework.model.derivationParameter.CertificateDerivation;
-import de.rub.nds.tlstest.framework.model.derivationParameter.CipherSuiteDerivation;
-import de.rub.nds.tlstest.framework.model.derivationParameter.SigAndHashDerivation;
 import de.rub.nds.tlstest.framework.model.derivationParameter.SignatureBitmaskDerivation;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
@@ -48,12 +46,7 @@ public class ConstraintHelper {
     private static final Logger LOGGER = LogManager.getLogger();
 
     public static boolean staticEcdhCipherSuiteModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        for (DerivationParameter param : values) {
-            CipherSuite cipherSuite = (CipherSuite) param.getSelectedValue();
+        for (CipherSuite cipherSuite : getModeledCipherSuites(scope)) {
             if (!cipherSuite.isEphemeral()
                     && AlgorithmResolver.getKeyExchangeAlgorithm(cipherSuite).isKeyExchangeEcdh()) {
                 return true;
@@ -63,65 +56,42 @@ public class ConstraintHelper {
     }
 
     public static boolean staticCipherSuiteModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        for (DerivationParameter param : values) {
-            CipherSuite cipherSuite = (CipherSuite) param.getSelectedValue();
-            if (!cipherSuite.isEphemeral()) {
-                return true;
-            }
-        }
-        return false;
+        return getModeledCipherSuites(scope).stream()
+                .anyMatch(cipherSuite -> !cipherSuite.isEphemeral());
     }
 
     public static boolean ephemeralCipherSuiteModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        for (DerivationParameter param : values) {
-            CipherSuite cipherSuite = (CipherSuite) param.getSelectedValue();
-            if (cipherSuite.isEphemeral()) {
-                return true;
-            }
-        }
-        return false;
+        return getModeledCipherSuites(scope).stream().anyMatch(CipherSuite::isEphemeral);
     }
 
     public static boolean nullSigHashModeled(DerivationScope scope) {
-        SigAndHashDerivation sigHashDeriv =
-                (SigAndHashDerivation) getParameterInstance(TlsParameterType.SIG_HASH_ALGORIHTM);
-        List<DerivationParameter<Config, SignatureAndHashAlgorithm>> values =
-                sigHashDeriv.getConstrainedParameterValues(scope);
-        return values.stream().anyMatch(parameter -> parameter.getSelectedValue() == null);
+        return getModeledSigAndHashAlgorithms(scope).contains(null);
     }
 
     public static boolean multipleBlocksizesModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        Set<Integer> blockLengths = new HashSet<>();
-        for (DerivationParameter<Config, CipherSuite> param : values) {
-            CipherSuite selectableCipherSuite = (CipherSuite) param.getSelectedValue();
-            if (AlgorithmResolver.getCipherType(selectableCipherSuite) == CipherType.BLOCK) {
-                blockLengths.add(AlgorithmResolver.getCipher(selectableCipherSuite).getBlocksize());
-            }
-        }
-
+        Set<Integer> blockLengths =
+                ModeledValueAnalysis.of(scope)
+                        .get(
+                                ModeledValueAnalysis.Property.BLOCK_SIZES,
+                                () -> {
+                                    Set<Integer> lengths = new HashSet<>();
+                                    for (CipherSuite cipherSuite : getModeledCipherSuites(scope)) {
+                                        if (AlgorithmResolver.getCipherType(cipherSuite)
+                                                == CipherType.BLOCK) {
+                                            lengths.add(
+                                                    AlgorithmResolver.getCipher(cipherSuite)
+                                                            .getBlocksize());
+                                        }
+                                    }
+                                    return lengths;
+                                });
         return blockLengths.size() > 1;
     }
 
     public static boolean unpaddedCipherSuitesModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        for (DerivationParameter param : values) {
-            CipherSuite cipherSuite = (CipherSuite) param.getSelectedValue();
-            if (!cipherSuite.isUsingPadding(getTargetVersion(scope))
+        ProtocolVersion targetVersion = getModeledTargetVersion(scope);
+        for (CipherSuite cipherSuite : getModeledCipherSuites(scope)) {
+            if (!cipherSuite.isUsingPadding(targetVersion)
                     || AlgorithmResolver.getCipherType(cipherSuite) == CipherType.AEAD) {
                 return true;
             }
@@ -131,82 +101,68 @@ public class ConstraintHelper {
     }
 
     public static boolean multipleMacSizesModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        Set<Integer> macLengths = new HashSet<>();
-        for (DerivationParameter param : values) {
-            int macLen =
-                    AlgorithmResolver.getMacAlgorithm(
-                                    getTargetVersion(scope), (CipherSuite) param.getSelectedValue())
-                            .getSize();
-            if (macLen > 0) {
-                macLengths.add(macLen);
-            }
-        }
-
+        Set<Integer> macLengths =
+                ModeledValueAnalysis.of(scope)
+                        .get(
+                                ModeledValueAnalysis.Property.MAC_SIZES,
+                                () -> {
+                                    ProtocolVersion targetVersion = getModeledTargetVersion(scope);
+                                    Set<Integer> lengths = new HashSet<>();
+                                    for (CipherSuite cipherSuite : getModeledCipherSuites(scope)) {
+                                        int macLen =
+                                                AlgorithmResolver.getMacAlgorithm(
+                                                                targetVersion, cipherSuite)
+                                                        .getSize();
+                                        if (macLen > 0) {
+                                            lengths.add(macLen);
+                                        }
+                                    }
+                                    return lengths;
+                                });
         return macLengths.size() > 1;
     }
 
     public static boolean ecdhCipherSuiteModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        for (DerivationParameter param : values) {
-            if (isTls13Test(scope)) {
-                return true;
-            }
-            if (AlgorithmResolver.getKeyExchangeAlgorithm((CipherSuite) param.getSelectedValue())
-                    .isKeyExchangeEcdh()) {
-                return true;
-            }
+        List<CipherSuite> cipherSuites = getModeledCipherSuites(scope);
+        if (!cipherSuites.isEmpty() && isTls13Test(scope)) {
+            return true;
         }
-
-        return false;
+        return cipherSuites.stream()
+                .anyMatch(
+                        cipherSuite ->
+                                AlgorithmResolver.getKeyExchangeAlgorithm(cipherSuite)
+                                        .isKeyExchangeEcdh());
     }
 
     public static boolean nonEcdhCipherSuiteModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        for (DerivationParameter param : values) {
-            if (!AlgorithmResolver.getKeyExchangeAlgorithm((CipherSuite) param.getSelectedValue())
-                    .isKeyExchangeEcdh()) {
-                return true;
-            }
-        }
-
-        return false;
+        return getModeledCipherSuites(scope).stream()
+                .anyMatch(
+                        cipherSuite ->
+                                !AlgorithmResolver.getKeyExchangeAlgorithm(cipherSuite)
+                                        .isKeyExchangeEcdh());
     }
 
     public static boolean multipleHkdfSizesModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        Set<HKDFAlgorithm> hkdfAlgos = new HashSet<>();
-        for (DerivationParameter param : values) {
-            CipherSuite selectedCipher = (CipherSuite) param.getSelectedValue();
-            hkdfAlgos.add(AlgorithmResolver.getHKDFAlgorithm(selectedCipher));
-        }
-
+        Set<HKDFAlgorithm> hkdfAlgos =
+                ModeledValueAnalysis.of(scope)
+                        .get(
+                                ModeledValueAnalysis.Property.HKDF_ALGORITHMS,
+                                () ->
+                                        getModeledCipherSuites(scope).stream()
+                                                .map(AlgorithmResolver::getHKDFAlgorithm)
+                                                .collect(Collectors.toSet()));
         return hkdfAlgos.size() > 1;
     }
 
     public static boolean multipleTagSizesModeled(DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        Set<Integer> tagLengths = new HashSet<>();
-        for (DerivationParameter param : values) {
-            CipherSuite selectedCipher = (CipherSuite) param.getSelectedValue();
-            tagLengths.add(getAuthTagLen(selectedCipher));
-        }
-
+        Set<Integer> tagLengths =
+                ModeledValueAnalysis.of(scope)
+                        .get(
+                                ModeledValueAnalysis.Property.TAG_SIZES,
+                                () ->
+                                        getModeledCipherSuites(scope).stream()
+                                                .map(ConstraintHelper::getAuthTagLen)
+                                                .collect(Collectors.toSet()));
         return tagLengths.size() > 1;
     }
 
@@ -218,15 +174,19 @@ public class ConstraintHelper {
     }
 
     public static boolean multipleSigAlgorithmRequiredKeyTypesModeled(DerivationScope scope) {
-        SigAndHashDerivation sigHashDeriv =
-                (SigAndHashDerivation) getParameterInstance(TlsParameterType.SIG_HASH_ALGORIHTM);
-        List<DerivationParameter<Config, SignatureAndHashAlgorithm>> values =
-                sigHashDeriv.getConstrainedParameterValues(scope);
-        values = removeNull(values);
+        Set<CertificateKeyType> keyTypes =
+                ModeledValueAnalysis.of(scope)
+                        .get(
+                                ModeledValueAnalysis.Property.SIG_ALGORITHM_KEY_TYPES,
+                                () -> getRequiredKeyTypes(getModeledSigAndHashAlgorithms(scope)));
+        return keyTypes.size() > 1;
+    }
+
+    private static Set<CertificateKeyType> getRequiredKeyTypes(
+            List<SignatureAndHashAlgorithm> algorithms) {
         Set<CertificateKeyType> keyTypes = new HashSet<>();
-        for (DerivationParameter param : values) {
-            SignatureAlgorithm sigAlgorithm =
-                    ((SigAndHashDerivation) param).getSelectedValue().getSignatureAlgorithm();
+        for (SignatureAndHashAlgorithm algorithm : removeNull(algorithms)) {
+            SignatureAlgorithm sigAlgorithm = algorithm.getSignatureAlgorithm();
             if (sigAlgorithm.name().contains("RSA")) {
                 keyTypes.add(CertificateKeyType.RSA);
             } else if (sigAlgorithm == SignatureAlgorithm.ECDSA) {
@@ -247,151 +207,83 @@ public class ConstraintHelper {
                                 + " was selected but should not be supported by TLS-Attacker");
             }
         }
-        return keyTypes.size() > 1;
+        return keyTypes;
     }
 
     public static boolean multipleCertPublicKeyTypesModeled(DerivationScope scope) {
-        CertificateDerivation certDeriv =
-                (CertificateDerivation) getParameterInstance(TlsParameterType.CERTIFICATE);
-        List<DerivationParameter<Config, CertificateKeyPair>> values =
-                certDeriv.getConstrainedParameterValues(scope);
-        Set<CertificateKeyType> certKeyTypes = new HashSet<>();
-        for (DerivationParameter param : values) {
-            certKeyTypes.add(
-                    ((CertificateDerivation) param).getSelectedValue().getCertPublicKeyType());
-        }
+        Set<CertificateKeyType> certKeyTypes =
+                ModeledValueAnalysis.of(scope)
+                        .get(
+                                ModeledValueAnalysis.Property.CERTIFICATE_KEY_TYPES,
+                                () ->
+                                        getModeledCertificates(scope).stream()
+                                                .map(CertificateKeyPair::getCertPublicKeyType)
+                                                .collect(Collectors.toSet()));
         return certKeyTypes.size() > 1;
     }
 
     public static boolean cipherSuitesWithDifferentCertPublicKeyRequirementsModeled(
             DerivationScope scope) {
-        CipherSuiteDerivation cipherSuiteDeriv =
-                (CipherSuiteDerivation) getParameterInstance(TlsParameterType.CIPHER_SUITE);
-        List<DerivationParameter<Config, CipherSuite>> values =
-                cipherSuiteDeriv.getConstrainedParameterValues(scope);
-        Set<CertificateKeyType> certKeyTypes = new HashSet<>();
-        for (DerivationParameter param : values) {
-            try {
-                certKeyTypes.add(
-                        AlgorithmResolver.getCertificateKeyType(
-                                ((CipherSuiteDerivation) param).getSelectedValue()));
-            } catch (Exception ignored) {
-                // resolver may fail for GREASE cipher suites
-            }
-        }
+        Set<CertificateKeyType> certKeyTypes =
+                ModeledValueAnalysis.of(scope)
+                        .get(
+                                ModeledValueAnalysis.Property.CIPHER_SUITE_KEY_TYPES,
+                                () -> {
+                                    Set<CertificateKeyType> keyTypes = new HashSet<>();
+                                    for (CipherSuite cipherSuite : getModeledCipherSuites(scope)) {
+                                        try {
+                                            keyTypes.add(
+                                                    AlgorithmResolver.getCertificateKeyType(
+                                                            cipherSuite));
+                                        } catch (Exception ignored) {
+                                            // resolver may fail for GREASE cipher suites
+                                        }
+                                    }
+                                    return keyTypes;
+                                });
         return certKeyTypes.size() > 1;
     }
 
     public static boolean pssSigAlgoModeled(DerivationScope scope) {
-        SigAndHashDerivation sigHashDeriv =
-                (SigAndHashDerivation) getParameterInstance(TlsParameterType.SIG_HASH_ALGORIHTM);
-        List<DerivationParameter<Config, SignatureAndHashAlgorithm>> algorithms =
-                sigHashDeriv.getConstrainedParameterValues(scope);
-        algorithms = removeNull(algorithms);
-        return algorithms.stream()
-                .anyMatch(
-                        param ->
-                                ((SigAndHashDerivation) param)
-                                        .getSelectedValue()
-                                        .name()
-                                        .contains("PSS"));
+        return removeNull(getModeledSigAndHashAlgorithms(scope)).stream()
+                .anyMatch(algorithm -> algorithm.name().contains("PSS"));
     }
 
     public static boolean rsaPkMightNotSufficeForPss(DerivationScope scope) {
-        SigAndHashDerivation sigHashDeriv =
-                (SigAndHashDerivation) getParameterInstance(TlsParameterType.SIG_HASH_ALGORIHTM);
-        List<DerivationParameter<Config, SignatureAndHashAlgorithm>> algorithms =
-                sigHashDeriv.getConstrainedParameterValues(scope);
-        algorithms = removeNull(algorithms);
-        CertificateDerivation certDerivation =
-                (CertificateDerivation) getParameterInstance(TlsParameterType.CERTIFICATE);
-        List<DerivationParameter<Config, CertificateKeyPair>> certificates =
-                certDerivation.getConstrainedParameterValues(scope);
         boolean pssWithSha512modeled =
-                algorithms.stream()
+                removeNull(getModeledSigAndHashAlgorithms(scope)).stream()
                         .anyMatch(
                                 algorithm ->
-                                        (((SigAndHashDerivation) algorithm)
-                                                                        .getSelectedValue()
-                                                                        .getSignatureAlgorithm()
+                                        (algorithm.getSignatureAlgorithm()
                                                                 == SignatureAlgorithm.RSA_PSS_PSS
-                                                        || ((SigAndHashDerivation) algorithm)
-                                                                        .getSelectedValue()
-                                                                        .getSignatureAlgorithm()
+                                                        || algorithm.getSignatureAlgorithm()
                                                                 == SignatureAlgorithm.RSA_PSS_RSAE)
-                                                && ((SigAndHashDerivation) algorithm)
-                                                                .getSelectedValue()
-                                                                .getHashAlgorithm()
+                                                && algorithm.getHashAlgorithm()
                                                         == HashAlgorithm.SHA512);
-
-        boolean rsaCertWithKeyBelow1024bitModeled =
-                certificates.stream()
-                        .anyMatch(
-                                certificate ->
-                                        ((CertificateDerivation) certificate)
-                                                                .getSelectedValue()
-                                                                .getCertPublicKeyType()
-                                                        == CertificateKeyType.RSA
-                                                && ((CertificateDerivation) certificate)
-                                                                .getSelectedValue()
-                                                                .getPublicKey()
-                                                                .keySize()
-                                                        < 1024);
-        boolean rsaCertWithKeyBelow2048bitModeled =
-                certificates.stream()
-                        .anyMatch(
-                                certificate ->
-                                        ((CertificateDerivation) certificate)
-                                                                .getSelectedValue()
-                                                                .getCertPublicKeyType()
-                                                        == CertificateKeyType.RSA
-                                                && ((CertificateDerivation) certificate)
-                                                                .getSelectedValue()
-                                                                .getPublicKey()
-                                                                .keySize()
-                                                        < 2048);
-        if (rsaCertWithKeyBelow1024bitModeled
-                || (rsaCertWithKeyBelow2048bitModeled && pssWithSha512modeled)) {
+        if (rsaPkBelowModeled(scope, 1024)) {
             return true;
         }
-        return false;
+        return rsaPkBelowModeled(scope, 2048) && pssWithSha512modeled;
     }
 
     public static boolean rsaPkBelow1024BitsModeled(DerivationScope scope) {
-        CertificateDerivation certDerivation =
-                (CertificateDerivation) getParameterInstance(TlsParameterType.CERTIFICATE);
-        List<DerivationParameter<Config, CertificateKeyPair>> certificates =
-                certDerivation.getConstrainedParameterValues(scope);
-        return certificates.stream()
+        return rsaPkBelowModeled(scope, 1024);
+    }
+
+    private static boolean rsaPkBelowModeled(DerivationScope scope, int keySize) {
+        return getModeledCertificates(scope).stream()
                 .anyMatch(
-                        selectedCert -> {
-                            return ((CertificateDerivation) selectedCert)
-                                                    .getSelectedValue()
-                                                    .getCertPublicKeyType()
-                                            == CertificateKeyType.RSA
-                                    && ((CertificateDerivation) selectedCert)
-                                                    .getSelectedValue()
-                                                    .getPublicKey()
-                                                    .keySize()
-                                            < 1024;
-                        });
+                        certificate ->
+                                certificate.getCertPublicKeyType() == CertificateKeyType.RSA
+                                        && certificate.getPublicKey().keySize() < keySize);
     }
 
     public static boolean rsaShaAlgLongerThan256BitsModeled(DerivationScope scope) {
-        SigAndHashDerivation sigHashDeriv =
-                (SigAndHashDerivation) getParameterInstance(TlsParameterType.SIG_HASH_ALGORIHTM);
-        List<DerivationParameter<Config, SignatureAndHashAlgorithm>> algorithms =
-                sigHashDeriv.getConstrainedParameterValues(scope);
-        return algorithms.stream()
+        return getModeledSigAndHashAlgorithms(scope).stream()
                 .anyMatch(
-                        selectedAlgo -> {
-                            if (((SigAndHashDerivation) selectedAlgo)
-                                    .getSelectedValue()
-                                    .name()
-                                    .contains("RSA")) {
-                                switch (((SigAndHashDerivation) selectedAlgo)
-                                        .getSelectedValue()
-                                        .getHashAlgorithm()) {
+                        algorithm -> {
+                            if (algorithm.name().contains("RSA")) {
+                                switch (algorithm.getHashAlgorithm()) {
                                     case SHA384:
                                     case SHA512:
                                         return true;
@@ -405,8 +297,6 @@ public class ConstraintHelper {
     }
 
     public static boolean signatureLengthConstraintApplicable(DerivationScope scope) {
-        CertificateDerivation certDeriv =
-                (CertificateDerivation) getParameterInstance(TlsParameterType.CERTIFICATE);
         SignatureBitmaskDerivation sigBitmaskDeriv =
                 (SignatureBitmaskDerivation)
                         getParameterInstance(TlsParameterType.SIGNATURE_BITMASK);
@@ -420,10 +310,7 @@ public class ConstraintHelper {
                         ((SignatureBitmaskDerivation) selectablePosition).getSelectedValue();
             }
         }
-        for (DerivationParameter certDerivationValue :
-                certDeriv.getConstrainedParameterValues(scope)) {
-            CertificateKeyPair certKeyPair =
-                    (CertificateKeyPair) certDerivationValue.getSelectedValue();
+        for (CertificateKeyPair certKeyPair : getModeledCertificates(scope)) {
             int signatureLength;
             switch (certKeyPair.getCertPublicKeyType()) {
                 case RSA:
@@ -487,11 +374,27 @@ public class ConstraintHelper {
         return 16;
     }
 
-    private static List<DerivationParameter<Config, SignatureAndHashAlgorithm>> removeNull(
-            List<DerivationParameter<Config, SignatureAndHashAlgorithm>> parameterValues) {
-        return parameterValues.stream()
-                .filter(value -> value.getSelectedValue() != null)
-                .collect(Collectors.toList());
+    private static List<SignatureAndHashAlgorithm> removeNull(
+            List<SignatureAndHashAlgorithm> algorithms) {
+        return algorithms.stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private static List<CipherSuite> getModeledCipherSuites(DerivationScope scope) {
+        return ModeledValueAnalysis.of(scope).getCipherSuites(scope);
+    }
+
+    private static List<SignatureAndHashAlgorithm> getModeledSigAndHashAlgorithms(
+            DerivationScope scope) {
+        return ModeledValueAnalysis.of(scope).getSigAndHashAlgorithms(scope);
+    }
+
+    private static List<CertificateKeyPair> getModeledCertificates(DerivationScope scope) {
+        return ModeledValueAnalysis.of(scope).getCertificates(scope);
+    }
+
+    private static ProtocolVersion getModeledTargetVersion(DerivationScope scope) {
+        return ModeledValueAnalysis.of(scope)
+                .get(ModeledValueAnalysis.Property.TARGET_VERSION, () -> getTargetVersion(scope));
     }
 
     private static DerivationParameter getParameterInstance(TlsParameterType parameterType) {
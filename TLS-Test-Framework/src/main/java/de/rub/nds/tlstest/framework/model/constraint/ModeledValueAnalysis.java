@@ -0,0 +1,119 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.model.constraint;
+
+import de.rub.nds.anvilcore.model.DerivationScope;
+import de.rub.nds.anvilcore.model.parameter.DerivationParameter;
+import de.rub.nds.anvilcore.model.parameter.ParameterScope;
+import de.rub.nds.tlsattacker.core.certificate.CertificateKeyPair;
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.SignatureAndHashAlgorithm;
+import de.rub.nds.tlstest.framework.model.TlsParameterType;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the values modeled for a DerivationScope and the properties the {@link
+ * ConstraintHelper} derives from them. Building the model of a single test template evaluates
+ * many predicates on the same values, which would otherwise determine the constrained values of
+ * the parameters again for each predicate.
+ *
+ * <p>The analysis does not reference its scope, hence it is discarded together with the scope.
+ */
+class ModeledValueAnalysis {
+
+    enum Property {
+        CIPHER_SUITES,
+        SIG_HASH_ALGORITHMS,
+        CERTIFICATES,
+        TARGET_VERSION,
+        BLOCK_SIZES,
+        MAC_SIZES,
+        TAG_SIZES,
+        HKDF_ALGORITHMS,
+        SIG_ALGORITHM_KEY_TYPES,
+        CERTIFICATE_KEY_TYPES,
+        CIPHER_SUITE_KEY_TYPES
+    }
+
+    private static final Map<DerivationScope, ModeledValueAnalysis> ANALYSES =
+            new WeakHashMap<>();
+    // a ReentrantLock does not pin the carrier thread when running on virtual threads
+    private static final ReentrantLock ANALYSES_LOCK = new ReentrantLock();
+
+    private final Map<Property, Object> properties = new ConcurrentHashMap<>();
+
+    static ModeledValueAnalysis of(DerivationScope scope) {
+        ANALYSES_LOCK.lock();
+        try {
+            return ANALYSES.computeIfAbsent(scope, key -> new ModeledValueAnalysis());
+        } finally {
+            ANALYSES_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached property or computes it. The computation may use other properties,
+     * concurrent callers may compute the same property.
+     *
+     * @param property the property
+     * @param computation computes the property, must not return null
+     * @param <T> type of the property
+     * @return the property
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(Property property, Supplier<T> computation) {
+        Object value = properties.get(property);
+        if (value == null) {
+            value = computation.get();
+            Object previous = properties.putIfAbsent(property, value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        return (T) value;
+    }
+
+    List<CipherSuite> getCipherSuites(DerivationScope scope) {
+        return get(
+                Property.CIPHER_SUITES,
+                () -> getModeledValues(TlsParameterType.CIPHER_SUITE, scope));
+    }
+
+    /** The returned list contains null if no signature and hash algorithm is modeled. */
+    List<SignatureAndHashAlgorithm> getSigAndHashAlgorithms(DerivationScope scope) {
+        return get(
+                Property.SIG_HASH_ALGORITHMS,
+                () -> getModeledValues(TlsParameterType.SIG_HASH_ALGORIHTM, scope));
+    }
+
+    List<CertificateKeyPair> getCertificates(DerivationScope scope) {
+        return get(
+                Property.CERTIFICATES, () -> getModeledValues(TlsParameterType.CERTIFICATE, scope));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> getModeledValues(
+            TlsParameterType parameterType, DerivationScope scope) {
+        List<DerivationParameter> values =
+                parameterType
+                        .getInstance(ParameterScope.NO_SCOPE)
+                        .getConstrainedParameterValues(scope);
+        // a list of the selected values, which may contain null
+        return Collections.unmodifiableList(
+                values.stream()
+                        .map(value -> (T) value.getSelectedValue())
+                        .collect(Collectors.toList()));
+    }
+}
@@ -20,6 +20,7 @@ import de.rub.nds.tlsattacker.core.constants.AlgorithmResolver;
 import de.rub.nds.tlsattacker.core.constants.CertificateKeyType;
 import de.rub.nds.tlsattacker.core.constants.CipherSuite;
 import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
+import de.rub.nds.tlstest.framework.FeatureExtractionResult;
 import de.rub.nds.tlstest.framework.TestContext;
 import de.rub.nds.tlstest.framework.anvil.TlsDerivationParameter;
 import de.rub.nds.tlstest.framework.model.TlsParameterType;
@@ -39,55 +40,15 @@ public class CertificateDerivation extends TlsDerivationParameter<CertificateKey
     private final int MIN_DSS_KEY_LEN;
     private final boolean ALLOW_DSS = true;
 
+    // derived from the feature extraction result once instead of for every instance
+    private static volatile MinimumKeySizes minimumKeySizes = null;
+
     public CertificateDerivation() {
         super(TlsParameterType.CERTIFICATE, CertificateKeyPair.class);
-        if (TestContext.getInstance()
-                        .getFeatureExtractionResult()
-                        .getResult(TlsAnalyzedProperty.ENFORCES_SERVER_CERT_MIN_KEY_SIZE_RSA_SIG)
-                == TestResults.TRUE) {
-            MIN_RSA_SIG_KEY_LEN =
-                    ((IntegerResult)
-                                    TestContext.getInstance()
-                                            .getFeatureExtractionResult()
-                                            .getResult(
-                                                    TlsAnalyzedProperty
-                                                            .SERVER_CERT_MIN_KEY_SIZE_RSA_SIG))
-                            .getValue();
-        } else {
-            MIN_RSA_SIG_KEY_LEN = 0;
-        }
-
-        if (TestContext.getInstance()
-                        .getFeatureExtractionResult()
-                        .getResult(TlsAnalyzedProperty.ENFORCES_SERVER_CERT_MIN_KEY_SIZE_RSA)
-                == TestResults.TRUE) {
-            MIN_RSA_KEY_LEN =
-                    ((IntegerResult)
-                                    TestContext.getInstance()
-                                            .getFeatureExtractionResult()
-                                            .getResult(
-                                                    TlsAnalyzedProperty
-                                                            .SERVER_CERT_MIN_KEY_SIZE_RSA))
-                            .getValue();
-        } else {
-            MIN_RSA_KEY_LEN = 0;
-        }
-
-        if (TestContext.getInstance()
-                        .getFeatureExtractionResult()
-                        .getResult(TlsAnalyzedProperty.ENFORCES_SERVER_CERT_MIN_KEY_SIZE_DSS)
-                == TestResults.TRUE) {
-            MIN_DSS_KEY_LEN =
-                    ((IntegerResult)
-                                    TestContext.getInstance()
-                                            .getFeatureExtractionResult()
-                                            .getResult(
-                                                    TlsAnalyzedProperty
-                                                            .SERVER_CERT_MIN_KEY_SIZE_DSS))
-                            .getValue();
-        } else {
-            MIN_DSS_KEY_LEN = 0;
-        }
+        MinimumKeySizes keySizes = getMinimumKeySizes();
+        MIN_RSA_SIG_KEY_LEN = keySizes.rsaSig;
+        MIN_RSA_KEY_LEN = keySizes.rsa;
+        MIN_DSS_KEY_LEN = keySizes.dss;
     }
 
     public CertificateDerivation(CertificateKeyPair certKeyPair) {
@@ -238,4 +199,53 @@ public class CertificateDerivation extends TlsDerivationParameter<CertificateKey
             CertificateKeyPair selectedValue) {
         return new CertificateDerivation(selectedValue);
     }
+
+    private static MinimumKeySizes getMinimumKeySizes() {
+        FeatureExtractionResult report = TestContext.getInstance().getFeatureExtractionResult();
+        MinimumKeySizes keySizes = minimumKeySizes;
+        if (keySizes == null || keySizes.featureExtractionResult != report) {
+            // concurrent callers may derive the same sizes, which is harmless
+            keySizes = new MinimumKeySizes(report);
+            minimumKeySizes = keySizes;
+        }
+        return keySizes;
+    }
+
+    /** The minimum key sizes the SUT enforces for certificates, 0 if it enforces none. */
+    private static class MinimumKeySizes {
+        private final FeatureExtractionResult featureExtractionResult;
+        private final int rsaSig;
+        private final int rsa;
+        private final int dss;
+
+        private MinimumKeySizes(FeatureExtractionResult featureExtractionResult) {
+            this.featureExtractionResult = featureExtractionResult;
+            rsaSig =
+                    getEnforcedKeySize(
+                            featureExtractionResult,
+                            TlsAnalyzedProperty.ENFORCES_SERVER_CERT_MIN_KEY_SIZE_RSA_SIG,
+                            TlsAnalyzedProperty.SERVER_CERT_MIN_KEY_SIZE_RSA_SIG);
+            rsa =
+                    getEnforcedKeySize(
+                            featureExtractionResult,
+                            TlsAnalyzedProperty.ENFORCES_SERVER_CERT_MIN_KEY_SIZE_RSA,
+                            TlsAnalyzedProperty.SERVER_CERT_MIN_KEY_SIZE_RSA);
+            dss =
+                    getEnforcedKeySize(
+                            featureExtractionResult,
+                            TlsAnalyzedProperty.ENFORCES_SERVER_CERT_MIN_KEY_SIZE_DSS,
+                            TlsAnalyzedProperty.SERVER_CERT_MIN_KEY_SIZE_DSS);
+        }
+
+        private static int getEnforcedKeySize(
+                FeatureExtractionResult featureExtractionResult,
+                TlsAnalyzedProperty enforcedProperty,
+                TlsAnalyzedProperty keySizeProperty) {
+            if (featureExtractionResult.getResult(enforcedProperty) == TestResults.TRUE) {
+                return ((IntegerResult) featureExtractionResult.getResult(keySizeProperty))
+                        .getValue();
+            }
+            return 0;
+        }
+    }
 }
@@ -18,6 +18,7 @@ import de.rub.nds.tlstest.framework.model.constraint.ConstraintHelper;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 public class CipherSuiteDerivation extends TlsDerivationParameter<CipherSuite> {
 
@@ -44,7 +45,9 @@ public class CipherSuiteDerivation extends TlsDerivationParameter<CipherSuite> {
     public List<DerivationParameter<Config, CipherSuite>> getParameterValues(
             DerivationScope derivationScope) {
         List<DerivationParameter<Config, CipherSuite>> parameterValues = new LinkedList<>();
-        Set<CipherSuite> cipherSuiteList = context.getFeatureExtractionResult().getCipherSuites();
+        Set<CipherSuite> cipherSuiteList =
+                new TreeSet<>((a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.name(), b.name()));
+        cipherSuiteList.addAll(context.getFeatureExtractionResult().getCipherSuites());
         cipherSuiteList.addAll(
                 context.getFeatureExtractionResult().getSupportedTls13CipherSuites());
         for (CipherSuite cipherSuite : cipherSuiteList) {
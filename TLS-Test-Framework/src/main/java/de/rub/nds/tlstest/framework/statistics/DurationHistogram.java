@@ -0,0 +1,99 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of durations. Bucket i counts durations of up to 2^i milliseconds, the
+ * last bucket counts all longer durations.
+ */
+public class DurationHistogram {
+
+    private static final int BUCKETS = 22;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BUCKETS - 1 && millis > (1L << bucket)) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalMillis() {
+        return totalNanos.sum() / 1_000_000;
+    }
+
+    public long getMaxMillis() {
+        return maxNanos.get() / 1_000_000;
+    }
+
+    /**
+     * @param quantile quantile between 0 and 1
+     * @return the upper bound in milliseconds of the bucket containing the quantile
+     */
+    public long getQuantileUpperBoundMillis(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        long threshold = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += snapshot[i];
+            if (seen >= threshold && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * @return a representation of the histogram suitable for the JSON report
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        long currentCount = getCount();
+        report.put("Count", currentCount);
+        report.put("TotalMillis", getTotalMillis());
+        report.put("MeanMillis", currentCount > 0 ? getTotalMillis() / currentCount : 0);
+        report.put("P50Millis", getQuantileUpperBoundMillis(0.5));
+        report.put("P95Millis", getQuantileUpperBoundMillis(0.95));
+        report.put("MaxMillis", getMaxMillis());
+        Map<String, Long> bucketCounts = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketCount = buckets.get(i);
+            if (bucketCount > 0) {
+                String label =
+                        i < BUCKETS - 1 ? "<=" + (1L << i) + "ms" : ">" + (1L << (i - 1)) + "ms";
+                bucketCounts.put(label, bucketCount);
+            }
+        }
+        report.put("Buckets", bucketCounts);
+        return report;
+    }
+}
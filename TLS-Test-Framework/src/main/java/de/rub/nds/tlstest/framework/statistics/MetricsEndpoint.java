@@ -0,0 +1,223 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.statistics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.rub.nds.tlstest.framework.TestContext;
+import de.rub.nds.tlstest.framework.execution.AdaptiveConcurrencyController;
+import de.rub.nds.tlstest.framework.execution.ServerRestartCoordinator;
+import de.rub.nds.tlstest.framework.utils.ThreadFactories;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Publishes the RunMetrics of the TestContext in the Prometheus text format on
+ * http://127.0.0.1:port/metrics. The handshake rate is sampled at a fixed interval, independently
+ * of how often the endpoint is scraped.
+ */
+public class MetricsEndpoint {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long SAMPLING_INTERVAL_SECONDS = 5;
+
+    private final TestContext testContext;
+    private HttpServer server;
+    // serves the HTTP requests and samples the handshake rate
+    private ScheduledExecutorService executor;
+
+    // only accessed by the sampling task, which never runs concurrently with itself
+    private long lastSampleNanos = 0;
+    private long lastSampleHandshakes = 0;
+    private volatile double handshakesPerSecond = 0;
+
+    public MetricsEndpoint(TestContext testContext) {
+        this.testContext = testContext;
+    }
+
+    public void start(int port) throws IOException {
+        server =
+                HttpServer.create(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this::handle);
+        executor =
+                Executors.newSingleThreadScheduledExecutor(
+                        ThreadFactories.createDaemon(
+                                "MetricsEndpoint-",
+                                testContext.getConfig().isUseVirtualThreads()));
+        server.setExecutor(executor);
+        executor.scheduleAtFixedRate(
+                this::sampleHandshakeRate, 0, SAMPLING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        server.start();
+        LOGGER.info("Publishing metrics on http://127.0.0.1:{}/metrics", port);
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private void sampleHandshakeRate() {
+        long now = System.nanoTime();
+        long executedHandshakes = testContext.getRunMetrics().getExecutedHandshakes();
+        if (lastSampleNanos != 0) {
+            handshakesPerSecond =
+                    (executedHandshakes - lastSampleHandshakes) * 1e9 / (now - lastSampleNanos);
+        }
+        lastSampleNanos = now;
+        lastSampleHandshakes = executedHandshakes;
+    }
+
+    String render() {
+        RunMetrics metrics = testContext.getRunMetrics();
+        StringBuilder builder = new StringBuilder();
+        appendMetric(
+                builder,
+                "tlsanvil_handshakes_total",
+                "counter",
+                "Executed handshakes",
+                metrics.getExecutedHandshakes());
+        appendMetric(
+                builder,
+                "tlsanvil_handshakes_per_second",
+                "gauge",
+                "Executed handshakes per second during the last sampling interval",
+                handshakesPerSecond);
+        appendMetric(
+                builder,
+                "tlsanvil_reexecutions_total",
+                "counter",
+                "Reexecuted handshakes",
+                metrics.getReexecutions());
+        appendMetric(
+                builder,
+                "tlsanvil_timeouts_total",
+                "counter",
+                "Handshakes that ended with a timed out socket",
+                metrics.getTimeouts());
+        appendMetric(
+                builder,
+                "tlsanvil_transport_exceptions_total",
+                "counter",
+                "Handshakes that raised a TransportHandler exception",
+                metrics.getTransportHandlerExceptions());
+        appendMetric(
+                builder,
+                "tlsanvil_server_restarts_total",
+                "counter",
+                "Restarts of the server under test",
+                metrics.getServerRestarts());
+        appendMetric(
+                builder,
+                "tlsanvil_server_handshakes_since_restart",
+                "gauge",
+                "Handshakes since the last server restart",
+                testContext.getServerHandshakesSinceRestart());
+
+        AdaptiveConcurrencyController concurrencyController =
+                testContext.getConcurrencyController();
+        if (concurrencyController != null) {
+            appendMetric(
+                    builder,
+                    "tlsanvil_tasks_in_flight",
+                    "gauge",
+                    "StateExecutionTasks currently executed",
+                    concurrencyController.getInFlight());
+            appendMetric(
+                    builder,
+                    "tlsanvil_tasks_queued",
+                    "gauge",
+                    "StateExecutionTasks waiting for admission",
+                    concurrencyController.getQueued());
+            appendMetric(
+                    builder,
+                    "tlsanvil_concurrency_limit",
+                    "gauge",
+                    "Current limit of concurrent handshakes",
+                    concurrencyController.getCurrentLimit());
+        }
+
+        ServerRestartCoordinator restartCoordinator = testContext.getServerRestartCoordinator();
+        if (restartCoordinator != null) {
+            appendMetric(
+                    builder,
+                    "tlsanvil_tasks_awaiting_restart",
+                    "gauge",
+                    "StateExecutionTasks waiting for a server restart to complete",
+                    restartCoordinator.getQueued());
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        appendMetric(
+                builder, "tlsanvil_heap_used_bytes", "gauge", "Used heap memory", heap.getUsed());
+        appendMetric(
+                builder,
+                "tlsanvil_heap_committed_bytes",
+                "gauge",
+                "Committed heap memory",
+                heap.getCommitted());
+        appendMetric(
+                builder,
+                "tlsanvil_scheduled_tests",
+                "gauge",
+                "Tests scheduled for this run",
+                metrics.getScheduledTests());
+
+        builder.append("# HELP tlsanvil_template_completed_test_cases_total")
+                .append(" Completed test cases per test template\n");
+        builder.append("# TYPE tlsanvil_template_completed_test_cases_total counter\n");
+        Map<String, Long> completed = new TreeMap<>();
+        metrics.getCompletedTestCasesPerTemplate()
+                .forEach((template, count) -> completed.put(template, count.sum()));
+        completed.forEach(
+                (template, count) ->
+                        builder.append("tlsanvil_template_completed_test_cases_total{template=\"")
+                                .append(escapeLabel(template))
+                                .append("\"} ")
+                                .append(count)
+                                .append('\n'));
+        return builder.toString();
+    }
+
+    private static void appendMetric(
+            StringBuilder builder, String name, String type, String help, Number value) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
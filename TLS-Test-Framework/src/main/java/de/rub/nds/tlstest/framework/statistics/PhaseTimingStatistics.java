@@ -0,0 +1,87 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.statistics;
+
+import de.rub.nds.tlstest.framework.anvil.TestCasePhase;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates the phase durations of all test cases per test template and for the whole run.
+ */
+public class PhaseTimingStatistics {
+
+    private final Map<TestCasePhase, DurationHistogram> globalHistograms = createHistograms();
+    private final Map<String, Map<TestCasePhase, DurationHistogram>> templateHistograms =
+            new ConcurrentHashMap<>();
+
+    public void record(String template, TestCasePhase phase, long nanos) {
+        globalHistograms.get(phase).record(nanos);
+        if (template != null) {
+            templateHistograms
+                    .computeIfAbsent(template, key -> createHistograms())
+                    .get(phase)
+                    .record(nanos);
+        }
+    }
+
+    /**
+     * @param template identifier of the test template
+     * @return the summed duration of all phases of the template's test cases in milliseconds
+     */
+    public long getTotalMillis(String template) {
+        Map<TestCasePhase, DurationHistogram> histograms = templateHistograms.get(template);
+        if (histograms == null) {
+            return 0;
+        }
+        return histograms.values().stream().mapToLong(DurationHistogram::getTotalMillis).sum();
+    }
+
+    public Map<String, Map<TestCasePhase, DurationHistogram>> getTemplateHistograms() {
+        return templateHistograms;
+    }
+
+    /**
+     * @return global and per-template histograms, templates are ordered by their total duration
+     */
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("Global", toReport(globalHistograms));
+        Map<String, Object> templates = new LinkedHashMap<>();
+        templateHistograms.keySet().stream()
+                .sorted(Comparator.comparingLong(this::getTotalMillis).reversed())
+                .forEach(
+                        template ->
+                                templates.put(
+                                        template, toReport(templateHistograms.get(template))));
+        report.put("Templates", templates);
+        return report;
+    }
+
+    private static Map<String, Object> toReport(Map<TestCasePhase, DurationHistogram> histograms) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        histograms.forEach(
+                (phase, histogram) -> {
+                    if (histogram.getCount() > 0) {
+                        report.put(phase.name(), histogram.toReport());
+                    }
+                });
+        return report;
+    }
+
+    private static Map<TestCasePhase, DurationHistogram> createHistograms() {
+        Map<TestCasePhase, DurationHistogram> histograms = new EnumMap<>(TestCasePhase.class);
+        for (TestCasePhase phase : TestCasePhase.values()) {
+            histograms.put(phase, new DurationHistogram());
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.statistics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counters describing the progress of the current test run, published by the MetricsEndpoint. */
+public class RunMetrics {
+
+    private final LongAdder executedHandshakes = new LongAdder();
+    private final LongAdder reexecutions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder transportHandlerExceptions = new LongAdder();
+    private final LongAdder serverRestarts = new LongAdder();
+    private final Map<String, LongAdder> completedTestCasesPerTemplate = new ConcurrentHashMap<>();
+    private final AtomicLong scheduledTests = new AtomicLong();
+
+    public void recordHandshake(
+            String template, int reexecutionCount, boolean timedOut, boolean transportException) {
+        executedHandshakes.increment();
+        reexecutions.add(reexecutionCount);
+        if (timedOut) {
+            timeouts.increment();
+        }
+        if (transportException) {
+            transportHandlerExceptions.increment();
+        }
+        if (template != null) {
+            completedTestCasesPerTemplate
+                    .computeIfAbsent(template, key -> new LongAdder())
+                    .increment();
+        }
+    }
+
+    public void recordServerRestart() {
+        serverRestarts.increment();
+    }
+
+    public void setScheduledTests(long tests) {
+        scheduledTests.set(tests);
+    }
+
+    public long getExecutedHandshakes() {
+        return executedHandshakes.sum();
+    }
+
+    public long getReexecutions() {
+        return reexecutions.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getTransportHandlerExceptions() {
+        return transportHandlerExceptions.sum();
+    }
+
+    public long getServerRestarts() {
+        return serverRestarts.sum();
+    }
+
+    public long getScheduledTests() {
+        return scheduledTests.get();
+    }
+
+    public Map<String, LongAdder> getCompletedTestCasesPerTemplate() {
+        return completedTestCasesPerTemplate;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.statistics;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Durations and number of test cases of test templates measured in previous runs. Templates are
+ * identified by the name of their test class and test method. The history is used to start the
+ * test classes with the longest expected duration first.
+ */
+public class TemplateDurationHistory {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int FORMAT_VERSION = 1;
+    // weight of the latest measurement, smoothes out outliers of single runs
+    private static final double SMOOTHING = 0.5;
+
+    @JsonProperty("Version")
+    private int version = FORMAT_VERSION;
+
+    @JsonProperty("Templates")
+    private Map<String, TemplateDuration> templates = new TreeMap<>();
+
+    public static class TemplateDuration {
+        @JsonProperty("DurationMillis")
+        private long durationMillis;
+
+        @JsonProperty("TestCases")
+        private long testCases;
+
+        private TemplateDuration() {}
+
+        public TemplateDuration(long durationMillis, long testCases) {
+            this.durationMillis = durationMillis;
+            this.testCases = testCases;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getTestCases() {
+            return testCases;
+        }
+    }
+
+    /**
+     * @param path location of the history file
+     * @return the stored history or an empty history if the file does not exist or is unreadable
+     */
+    public static TemplateDurationHistory load(Path path) {
+        if (path == null || !Files.isRegularFile(path)) {
+            return new TemplateDurationHistory();
+        }
+        try {
+            TemplateDurationHistory history =
+                    new ObjectMapper().readValue(path.toFile(), TemplateDurationHistory.class);
+            if (history.version != FORMAT_VERSION || history.templates == null) {
+                LOGGER.warn("Ignoring template history {} of unknown format", path);
+                return new TemplateDurationHistory();
+            }
+            return history;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read template history {}", path, e);
+            return new TemplateDurationHistory();
+        }
+    }
+
+    /**
+     * Writes the history to a temporary file that replaces the given file afterwards, hence
+     * concurrent readers never see a partially written history.
+     *
+     * @param path location of the history file
+     */
+    public void save(Path path) {
+        try {
+            Path absolutePath = path.toAbsolutePath();
+            Files.createDirectories(absolutePath.getParent());
+            Path temporaryFile =
+                    Files.createTempFile(
+                            absolutePath.getParent(),
+                            absolutePath.getFileName().toString(),
+                            ".tmp");
+            new ObjectMapper()
+                    .writerWithDefaultPrettyPrinter()
+                    .writeValue(temporaryFile.toFile(), this);
+            Files.move(
+                    temporaryFile,
+                    absolutePath,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write template history {}", path, e);
+        }
+    }
+
+    /**
+     * Adds the durations measured in the current run. Templates that were not executed keep
+     * their previous measurements.
+     *
+     * @param phaseTimingStatistics phase durations of the current run
+     * @param runMetrics completed test cases of the current run
+     */
+    public void update(PhaseTimingStatistics phaseTimingStatistics, RunMetrics runMetrics) {
+        for (String template : phaseTimingStatistics.getTemplateHistograms().keySet()) {
+            long measuredMillis = phaseTimingStatistics.getTotalMillis(template);
+            long testCases =
+                    runMetrics.getCompletedTestCasesPerTemplate().containsKey(template)
+                            ? runMetrics.getCompletedTestCasesPerTemplate().get(template).sum()
+                            : 0;
+            TemplateDuration previous = templates.get(template);
+            if (previous != null) {
+                measuredMillis =
+                        Math.round(
+                                SMOOTHING * measuredMillis
+                                        + (1 - SMOOTHING) * previous.getDurationMillis());
+            }
+            templates.put(template, new TemplateDuration(measuredMillis, testCases));
+        }
+    }
+
+    /**
+     * @param testClassName fully qualified name of a test class
+     * @return the summed duration of the class' templates or -1 if none has been measured
+     */
+    public long getClassDurationMillis(String testClassName) {
+        String prefix = testClassName + ".";
+        long duration = -1;
+        for (Map.Entry<String, TemplateDuration> entry : templates.entrySet()) {
+            if (entry.getKey().startsWith(prefix)
+                    && entry.getKey().indexOf('.', prefix.length()) < 0) {
+                duration = Math.max(duration, 0) + entry.getValue().getDurationMillis();
+            }
+        }
+        return duration;
+    }
+
+    public Map<String, TemplateDuration> getTemplates() {
+        return templates;
+    }
+}
@@ -15,6 +15,7 @@ import de.rub.nds.tlsattacker.core.config.Config;
 import de.rub.nds.tlsattacker.core.constants.PskKeyExchangeMode;
 import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
 import de.rub.nds.tlstest.framework.TestContext;
+import de.rub.nds.tlstest.framework.anvil.TestCasePhase;
 import de.rub.nds.tlstest.framework.anvil.TlsParameterCombination;
 import de.rub.nds.tlstest.framework.execution.WorkflowRunner;
 import de.rub.nds.tlstest.framework.junitExtensions.EnforcedSenderRestrictionConditionExtension;
@@ -45,24 +46,35 @@ public abstract class TlsBaseTest extends AnvilTestBaseClass {
 
     protected ExtensionContext extensionContext;
 
+    private long configCreationNanos = 0;
+
     @BeforeEach
     public void setExtensionContext(ExtensionContext extensionContext) {
         this.extensionContext = extensionContext;
     }
 
     public Config getPreparedConfig(ArgumentsAccessor argAccessor, WorkflowRunner runner) {
+        long creationStart = System.nanoTime();
         Config toPrepare = getConfig();
+        // recorded together with the preparation as a single sample
+        configCreationNanos = System.nanoTime() - creationStart;
         return prepareConfig(toPrepare, argAccessor, runner);
     }
 
     public Config prepareConfig(
             Config config, ArgumentsAccessor argAccessor, WorkflowRunner runner) {
+        long preparationStart = System.nanoTime();
         parameterCombination =
                 TlsParameterCombination.fromArgumentsAccessor(
                         argAccessor, new DerivationScope(extensionContext));
         parameterCombination.applyToConfig(config);
         runner.setPreparedConfig(config);
         runner.setTlsParameterCombination(parameterCombination);
+        runner.getTlsTestCase()
+                .recordPhaseDuration(
+                        TestCasePhase.CONFIG_PREPARATION,
+                        configCreationNanos + System.nanoTime() - preparationStart);
+        configCreationNanos = 0;
         return config;
     }
 
@@ -0,0 +1,136 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.utils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the constant pool of a class file without loading the class. The UTF-8 constants contain
+ * the names and descriptors of all classes, fields and methods the class refers to. The member
+ * references denote the fields and methods the code of the class accesses, identified by the
+ * internal name of the declaring class and the member name, e.g.
+ * "de/rub/nds/tlstest/framework/TestContext.getInstance".
+ */
+public class ClassConstantPool {
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+    private final Set<String> utf8Constants;
+    private final Set<String> memberReferences;
+
+    private ClassConstantPool(Set<String> utf8Constants, Set<String> memberReferences) {
+        this.utf8Constants = utf8Constants;
+        this.memberReferences = memberReferences;
+    }
+
+    /**
+     * @param classFile stream positioned at the start of a class file, not closed by this method
+     * @return the constant pool of the class file
+     * @throws IOException if the stream does not contain a valid class file
+     */
+    public static ClassConstantPool read(InputStream classFile) throws IOException {
+        DataInputStream input = new DataInputStream(classFile);
+        if (input.readInt() != CLASS_FILE_MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        // minor and major version
+        input.readInt();
+        int constantPoolCount = input.readUnsignedShort();
+        String[] utf8Entries = new String[constantPoolCount];
+        // Class: index of the name, NameAndType: index of the name, member references: index of
+        // the Class and index of the NameAndType
+        int[] firstIndices = new int[constantPoolCount];
+        int[] secondIndices = new int[constantPoolCount];
+        Set<Integer> memberReferenceEntries = new HashSet<>();
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8Entries[i] = input.readUTF();
+                    break;
+                case 7: // Class
+                    firstIndices[i] = input.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    input.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    input.skipBytes(3);
+                    break;
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                    memberReferenceEntries.add(i);
+                    firstIndices[i] = input.readUnsignedShort();
+                    secondIndices[i] = input.readUnsignedShort();
+                    break;
+                case 12: // NameAndType
+                    firstIndices[i] = input.readUnsignedShort();
+                    input.skipBytes(2);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    input.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    input.skipBytes(8);
+                    // eight byte constants occupy two entries
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        Set<String> utf8Constants = new HashSet<>();
+        for (String entry : utf8Entries) {
+            if (entry != null) {
+                utf8Constants.add(entry);
+            }
+        }
+        Set<String> memberReferences = new HashSet<>();
+        try {
+            for (int entry : memberReferenceEntries) {
+                String owner = utf8Entries[firstIndices[firstIndices[entry]]];
+                String name = utf8Entries[firstIndices[secondIndices[entry]]];
+                if (owner == null || name == null) {
+                    throw new IOException("Malformed member reference " + entry);
+                }
+                memberReferences.add(owner + "." + name);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed constant pool", e);
+        }
+        return new ClassConstantPool(utf8Constants, memberReferences);
+    }
+
+    /**
+     * @return all UTF-8 constants of the constant pool
+     */
+    public Set<String> getUtf8Constants() {
+        return utf8Constants;
+    }
+
+    /**
+     * @return the fields and methods referenced by the class in the form "owner.name", where the
+     *     owner is the internal name of the class the member is accessed on
+     */
+    public Set<String> getMemberReferences() {
+        return memberReferences;
+    }
+}
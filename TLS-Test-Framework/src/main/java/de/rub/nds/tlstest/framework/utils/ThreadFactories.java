@@ -0,0 +1,76 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.utils;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Creates the ThreadFactories used for the framework's own threads. Virtual threads are resolved
+ * reflectively, as the framework is still compiled for Java 11 but may run on a JVM that
+ * supports them.
+ */
+public class ThreadFactories {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private ThreadFactories() {}
+
+    /**
+     * @param namePrefix prefix of the created thread's names
+     * @param useVirtualThreads whether virtual threads should be created if the JVM supports them
+     * @return a ThreadFactory creating named threads
+     */
+    public static ThreadFactory create(String namePrefix, boolean useVirtualThreads) {
+        if (useVirtualThreads) {
+            ThreadFactory virtualThreadFactory = createVirtualThreadFactory(namePrefix);
+            if (virtualThreadFactory != null) {
+                return virtualThreadFactory;
+            }
+            LOGGER.warn(
+                    "Virtual threads are not supported by this JVM, using platform threads instead");
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        return runnable -> new Thread(runnable, namePrefix + threadCounter.getAndIncrement());
+    }
+
+    /**
+     * Like {@link #create(String, boolean)}, but created platform threads do not keep the JVM
+     * alive. Virtual threads are always daemon threads.
+     *
+     * @param namePrefix prefix of the created thread's names
+     * @param useVirtualThreads whether virtual threads should be created if the JVM supports them
+     * @return a ThreadFactory creating named daemon threads
+     */
+    public static ThreadFactory createDaemon(String namePrefix, boolean useVirtualThreads) {
+        ThreadFactory threadFactory = create(namePrefix, useVirtualThreads);
+        return runnable -> {
+            Thread thread = threadFactory.newThread(runnable);
+            if (!thread.isDaemon()) {
+                thread.setDaemon(true);
+            }
+            return thread;
+        };
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder =
+                    builderClass
+                            .getMethod("name", String.class, long.class)
+                            .invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            LOGGER.debug("Virtual threads unavailable", e);
+            return null;
+        }
+    }
+}
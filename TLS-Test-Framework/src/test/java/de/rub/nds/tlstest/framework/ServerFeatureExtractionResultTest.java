@@ -2,8 +2,14 @@ package de.rub.nds.tlstest.framework;
 
 import static org.junit.Assert.*;
 
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.NamedGroup;
 import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
 import de.rub.nds.tlstest.framework.exceptions.FeatureExtractionFailedException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 public class ServerFeatureExtractionResultTest {
@@ -17,4 +23,35 @@ public class ServerFeatureExtractionResultTest {
                 FeatureExtractionFailedException.class,
                 () -> ServerFeatureExtractionResult.fromServerScanReport(emptyReport));
     }
+
+    @Test
+    public void testDerivedViews() {
+        ServerFeatureExtractionResult result = new ServerFeatureExtractionResult("hostname", 4433);
+        result.setSupportedCipherSuites(
+                new HashSet<>(
+                        List.of(
+                                CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA,
+                                CipherSuite.TLS_AES_128_GCM_SHA256,
+                                CipherSuite.TLS_DHE_RSA_WITH_AES_128_CBC_SHA)));
+        result.setSupportedNamedGroups(
+                new HashSet<>(List.of(NamedGroup.SECP256R1, NamedGroup.FFDHE2048)));
+
+        Set<CipherSuite> cipherSuites = result.getCipherSuites();
+        assertEquals(
+                List.of(
+                        CipherSuite.TLS_DHE_RSA_WITH_AES_128_CBC_SHA,
+                        CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA),
+                new ArrayList<>(cipherSuites));
+        assertSame(cipherSuites, result.getCipherSuites());
+        assertEquals(
+                Set.of(CipherSuite.TLS_AES_128_GCM_SHA256), result.getSupportedTls13CipherSuites());
+        assertEquals(List.of(NamedGroup.SECP256R1), result.getNamedGroups());
+        assertEquals(List.of(NamedGroup.FFDHE2048), result.getFfdheNamedGroups());
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> cipherSuites.add(CipherSuite.TLS_RSA_WITH_NULL_MD5));
+
+        result.setSupportedCipherSuites(new HashSet<>());
+        assertTrue(result.getCipherSuites().isEmpty());
+    }
 }
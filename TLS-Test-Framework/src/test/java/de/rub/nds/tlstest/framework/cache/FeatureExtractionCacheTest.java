@@ -0,0 +1,110 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import static org.junit.Assert.*;
+
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlstest.framework.ClientFeatureExtractionResult;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FeatureExtractionCacheTest {
+
+    private static final List<String> PROBES = List.of("BASIC", "CIPHER_SUITE");
+
+    private static FeatureExtractionCacheKey createKey(String endpoint) {
+        return new FeatureExtractionCacheKey(endpoint, false, "1");
+    }
+
+    private static ClientFeatureExtractionResult createResult() {
+        ClientFeatureExtractionResult result = new ClientFeatureExtractionResult("client");
+        result.getSupportedCipherSuites().add(CipherSuite.TLS_AES_128_GCM_SHA256);
+        return result;
+    }
+
+    private static Map<String, ProbeRecord> createRecords(String sutIdentity) {
+        Map<String, ProbeRecord> records = new HashMap<>();
+        for (String probe : PROBES) {
+            records.put(probe, new ProbeRecord(sutIdentity, System.currentTimeMillis()));
+        }
+        return records;
+    }
+
+    @Test
+    public void loadsStoredResult(@TempDir Path directory) {
+        FeatureExtractionCache cache = new FeatureExtractionCache(directory, 0);
+        cache.store(createKey("CLIENT/4433"), createResult(), createRecords("a"));
+
+        CachedFeatureExtractionResult loaded = cache.load(createKey("CLIENT/4433"));
+        assertNotNull(loaded);
+        assertTrue(
+                loaded.getResult()
+                        .getSupportedCipherSuites()
+                        .contains(CipherSuite.TLS_AES_128_GCM_SHA256));
+        assertEquals(PROBES.size(), loaded.getProbeRecords().size());
+        assertNull(cache.load(createKey("CLIENT/4434")));
+        assertNull(
+                new FeatureExtractionCache(directory.resolve("empty"), 0)
+                        .load(createKey("CLIENT/4433")));
+    }
+
+    @Test
+    public void determinesStaleProbes(@TempDir Path directory) throws InterruptedException {
+        FeatureExtractionCache cache = new FeatureExtractionCache(directory, 0);
+        cache.store(createKey("CLIENT/4433"), createResult(), createRecords("a"));
+        CachedFeatureExtractionResult loaded = cache.load(createKey("CLIENT/4433"));
+
+        assertEquals(List.of(), loaded.getStaleProbes(PROBES, "a", List.of()));
+        assertEquals(
+                List.of("CIPHER_SUITE"),
+                loaded.getStaleProbes(PROBES, "a", List.of("CIPHER_SUITE")));
+        assertEquals(PROBES, loaded.getStaleProbes(PROBES, "b", List.of()));
+        assertEquals(
+                List.of("NAMED_GROUPS"),
+                loaded.getStaleProbes(List.of("BASIC", "NAMED_GROUPS"), "a", List.of()));
+
+        Thread.sleep(5);
+        CachedFeatureExtractionResult expired =
+                new FeatureExtractionCache(directory, 1).load(createKey("CLIENT/4433"));
+        assertEquals(PROBES, expired.getStaleProbes(PROBES, "a", List.of()));
+    }
+
+    @Test
+    public void unknownIdentityIsAlwaysStale(@TempDir Path directory) {
+        FeatureExtractionCache cache = new FeatureExtractionCache(directory, 0);
+        cache.store(
+                createKey("CLIENT/4433"), createResult(), createRecords(SutIdentity.UNKNOWN));
+        CachedFeatureExtractionResult loaded = cache.load(createKey("CLIENT/4433"));
+        assertEquals(PROBES, loaded.getStaleProbes(PROBES, SutIdentity.UNKNOWN, List.of()));
+    }
+
+    @Test
+    public void removesInvalidatedEntries(@TempDir Path directory) {
+        FeatureExtractionCache cache = new FeatureExtractionCache(directory, 0);
+        cache.store(createKey("CLIENT/4433"), createResult(), createRecords("a"));
+        assertEquals(1, cache.invalidate("CLIENT/4433"));
+        assertNull(cache.load(createKey("CLIENT/4433")));
+    }
+
+    @Test
+    public void keyDependsOnAllComponents() {
+        assertEquals(createKey("CLIENT/4433").getId(), createKey("CLIENT/4433").getId());
+        assertNotEquals(createKey("CLIENT/4433").getId(), createKey("CLIENT/4434").getId());
+        assertNotEquals(
+                createKey("CLIENT/4433").getId(),
+                new FeatureExtractionCacheKey("CLIENT/4433", true, "1").getId());
+        assertNotEquals(
+                createKey("CLIENT/4433").getId(),
+                new FeatureExtractionCacheKey("CLIENT/4433", false, "2").getId());
+    }
+}
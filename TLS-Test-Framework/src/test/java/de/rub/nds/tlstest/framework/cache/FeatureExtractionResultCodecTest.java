@@ -0,0 +1,148 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.cache;
+
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.rub.nds.scanner.core.probe.result.TestResults;
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.ExtensionType;
+import de.rub.nds.tlsattacker.core.constants.NamedGroup;
+import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
+import de.rub.nds.tlsattacker.core.constants.SignatureAndHashAlgorithm;
+import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
+import de.rub.nds.tlsscanner.core.probe.result.VersionSuiteListPair;
+import de.rub.nds.tlstest.framework.ClientFeatureExtractionResult;
+import de.rub.nds.tlstest.framework.FeatureExtractionResult;
+import de.rub.nds.tlstest.framework.ServerFeatureExtractionResult;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class FeatureExtractionResultCodecTest {
+
+    private final FeatureExtractionResultCodec codec = new FeatureExtractionResultCodec();
+
+    private static ServerFeatureExtractionResult createServerResult() {
+        ServerFeatureExtractionResult result = new ServerFeatureExtractionResult("localhost", 8443);
+        result.getSupportedCipherSuites()
+                .addAll(
+                        Set.of(
+                                CipherSuite.TLS_AES_128_GCM_SHA256,
+                                CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256));
+        result.getSupportedVersions().addAll(Set.of(ProtocolVersion.TLS12, ProtocolVersion.TLS13));
+        result.getSupportedNamedGroups().add(NamedGroup.SECP256R1);
+        result.getSupportedTls13Groups().add(NamedGroup.ECDH_X25519);
+        result.getVersionSuitePairs()
+                .add(
+                        new VersionSuiteListPair(
+                                ProtocolVersion.TLS12,
+                                List.of(CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256)));
+        result.getNegotiableExtensions().add(ExtensionType.EXTENDED_MASTER_SECRET);
+        result.setClosedAfterAppDataDelta(42);
+        result.setResultMap(new HashMap<>());
+        result.getResultMap().put(TlsAnalyzedProperty.SUPPORTS_TLS13_PSK, TestResults.TRUE);
+        return result;
+    }
+
+    @Test
+    public void roundTripsServerResult() throws IOException {
+        ServerFeatureExtractionResult decoded =
+                (ServerFeatureExtractionResult)
+                        codec.decode(codec.encode(createServerResult()));
+
+        assertEquals("localhost", decoded.getHost());
+        assertEquals(8443, decoded.getPort());
+        assertEquals(
+                createServerResult().getSupportedCipherSuites(),
+                decoded.getSupportedCipherSuites());
+        assertEquals(
+                createServerResult().getSupportedVersions(), decoded.getSupportedVersions());
+        assertEquals(Set.of(NamedGroup.SECP256R1), decoded.getSupportedNamedGroups());
+        assertEquals(Set.of(NamedGroup.ECDH_X25519), decoded.getSupportedTls13Groups());
+        assertEquals(1, decoded.getVersionSuitePairs().size());
+        assertEquals(ProtocolVersion.TLS12, decoded.getVersionSuitePairs().get(0).getVersion());
+        assertEquals(
+                Set.of(ExtensionType.EXTENDED_MASTER_SECRET), decoded.getNegotiableExtensions());
+        assertEquals(42, decoded.getClosedAfterAppDataDelta());
+        assertEquals(
+                TestResults.TRUE, decoded.getResult(TlsAnalyzedProperty.SUPPORTS_TLS13_PSK));
+    }
+
+    @Test
+    public void retainsOrderOfClientLists() throws IOException {
+        ClientFeatureExtractionResult result = new ClientFeatureExtractionResult("client");
+        result.getAdvertisedExtensions()
+                .addAll(List.of(ExtensionType.KEY_SHARE, ExtensionType.ELLIPTIC_CURVES));
+        result.getAdvertisedSignatureAndHashAlgorithms()
+                .add(SignatureAndHashAlgorithm.RSA_PSS_RSAE_SHA256);
+
+        FeatureExtractionResult decoded = codec.decode(codec.encode(result));
+        assertTrue(decoded instanceof ClientFeatureExtractionResult);
+        assertEquals(
+                List.of(ExtensionType.KEY_SHARE, ExtensionType.ELLIPTIC_CURVES),
+                ((ClientFeatureExtractionResult) decoded).getAdvertisedExtensions());
+        assertNull(decoded.getResultMap());
+    }
+
+    @Test
+    public void skipsUnknownFieldsAndEntries() throws IOException {
+        ObjectNode document = codec.encode(createServerResult());
+        document.put("AddedInLaterVersion", true);
+        ((ObjectNode) document.get("Results")).put("REMOVED_PROPERTY", "TRUE");
+        document.remove("ClosedAfterFinishedDelta");
+
+        FeatureExtractionResult decoded = codec.decode(document);
+        assertEquals(1, decoded.getResultMap().size());
+        assertEquals(
+                createServerResult().getClosedAfterFinishedDelta(),
+                decoded.getClosedAfterFinishedDelta());
+    }
+
+    @Test
+    public void rejectsUnreadableSerializedResults() throws IOException {
+        ObjectNode removedProperty = codec.encode(createServerResult());
+        ((ObjectNode) removedProperty.get("SerializedResults")).put("REMOVED_PROPERTY", "AAAA");
+        assertEquals(1, codec.decode(removedProperty).getResultMap().size());
+
+        // e.g. a result whose class changed with an update of the scanner
+        ObjectNode changedClass = codec.encode(createServerResult());
+        ((ObjectNode) changedClass.get("SerializedResults"))
+                .put(TlsAnalyzedProperty.CLIENT_ADVERTISED_CIPHERSUITES.name(), "AAAA");
+        assertThrows(IOException.class, () -> codec.decode(changedClass));
+
+        ObjectNode changedWitness = codec.encode(createServerResult());
+        ((ObjectNode) changedWitness.get("NamedGroupWitnesses"))
+                .put(NamedGroup.SECP256R1.name(), "AAAA");
+        assertThrows(IOException.class, () -> codec.decode(changedWitness));
+    }
+
+    @Test
+    public void rejectsIncompatibleDocuments() throws IOException {
+        ObjectNode changedEnum = codec.encode(createServerResult());
+        ((ObjectNode) changedEnum.get("Enums").get("CipherSuite")).put("Digest", "0");
+        assertThrows(IOException.class, () -> codec.decode(changedEnum));
+
+        ObjectNode newerVersion = codec.encode(createServerResult());
+        newerVersion.put("Version", FeatureExtractionResultCodec.FORMAT_VERSION + 1);
+        assertThrows(IOException.class, () -> codec.decode(newerVersion));
+    }
+
+    @Test
+    public void rejectsUnserializableValues() throws IOException {
+        assertNotNull(FeatureExtractionResultCodec.serialize(List.of(NamedGroup.SECP256R1)));
+        assertThrows(IOException.class, () -> FeatureExtractionResultCodec.serialize(new Object()));
+        // serializable container with an unserializable element
+        assertThrows(
+                IOException.class,
+                () -> FeatureExtractionResultCodec.serialize(List.of(new Object())));
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyControllerTest {
+
+    @Test
+    public void queuesSubmissionsAboveLimit() {
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(2, 2, false);
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            controller.submit(started::incrementAndGet);
+        }
+        assertEquals(2, started.get());
+        assertEquals(1, controller.getQueued());
+
+        controller.onCompletion(10, false);
+        assertEquals(3, started.get());
+        assertEquals(0, controller.getQueued());
+        assertEquals(2, controller.getInFlight());
+    }
+
+    @Test
+    public void increasesLimitWhileHealthy() {
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(2, 8, true);
+        for (int i = 0; i < 50; i++) {
+            controller.submit(() -> {});
+            controller.onCompletion(10, false);
+        }
+        assertTrue(controller.getCurrentLimit() > 2);
+        assertEquals(controller.getCurrentLimit(), controller.getPeakLimit());
+    }
+
+    @Test
+    public void halvesLimitOnCongestion() {
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(8, 8, true);
+        for (int i = 0; i < 8; i++) {
+            controller.submit(() -> {});
+        }
+        for (int i = 0; i < 8; i++) {
+            controller.onCompletion(10, true);
+        }
+        assertEquals(4, controller.getCurrentLimit());
+        assertEquals(8, controller.getPeakLimit());
+    }
+
+    @Test
+    public void keepsLimitIfNotAdaptive() {
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(4, 8, false);
+        for (int i = 0; i < 20; i++) {
+            controller.submit(() -> {});
+            controller.onCompletion(10, i % 2 == 0);
+        }
+        assertEquals(4, controller.getCurrentLimit());
+    }
+}
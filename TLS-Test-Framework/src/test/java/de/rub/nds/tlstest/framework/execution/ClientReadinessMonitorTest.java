@@ -0,0 +1,124 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class ClientReadinessMonitorTest {
+
+    @Test
+    public void detectsTriggeredConnection() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+                ClientReadinessMonitor monitor =
+                        new ClientReadinessMonitor(
+                                () -> {
+                                    new Socket(
+                                                    InetAddress.getLoopbackAddress(),
+                                                    serverSocket.getLocalPort())
+                                            .close();
+                                    return 0;
+                                },
+                                () -> 0,
+                                Executors.defaultThreadFactory())) {
+            monitor.startTriggering();
+            assertTrue(monitor.awaitConnection(serverSocket, 5000, () -> false));
+            assertEquals(0, serverSocket.getSoTimeout());
+        }
+    }
+
+    @Test
+    public void stopsWaitingAtDeadline() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0);
+                ClientReadinessMonitor monitor =
+                        new ClientReadinessMonitor(
+                                () -> 0, () -> 0, Executors.defaultThreadFactory())) {
+            assertFalse(monitor.awaitConnection(serverSocket, 200, () -> false));
+            assertFalse(monitor.awaitConnection(serverSocket, 0, () -> true));
+        }
+    }
+
+    @Test
+    public void skipsTriggersWhileClientIsRunning() throws Exception {
+        AtomicInteger triggers = new AtomicInteger();
+        CountDownLatch triggered = new CountDownLatch(1);
+        try (ClientReadinessMonitor monitor =
+                new ClientReadinessMonitor(
+                        () -> {
+                            triggers.incrementAndGet();
+                            triggered.countDown();
+                            return 0;
+                        },
+                        // the first trigger started a process that keeps running
+                        triggers::get,
+                        Executors.defaultThreadFactory())) {
+            monitor.startTriggering();
+            assertTrue(triggered.await(5, TimeUnit.SECONDS));
+            Thread.sleep(ClientReadinessMonitor.TRIGGER_INTERVAL_MILLIS * 2);
+            assertEquals(1, triggers.get());
+        }
+    }
+
+    @Test
+    public void retriggersHungClient() throws Exception {
+        AtomicInteger triggers = new AtomicInteger();
+        CountDownLatch triggered = new CountDownLatch(2);
+        try (ClientReadinessMonitor monitor =
+                new ClientReadinessMonitor(
+                        () -> {
+                            triggers.incrementAndGet();
+                            triggered.countDown();
+                            return 0;
+                        },
+                        // processes started by the triggers never terminate
+                        triggers::get,
+                        Executors.defaultThreadFactory(),
+                        ClientReadinessMonitor.TRIGGER_INTERVAL_MILLIS)) {
+            monitor.startTriggering();
+            assertTrue(triggered.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void detectsDatagram() throws Exception {
+        int port;
+        try (DatagramSocket socket = new DatagramSocket()) {
+            port = socket.getLocalPort();
+        }
+        try (ClientReadinessMonitor monitor =
+                new ClientReadinessMonitor(
+                        () -> {
+                            try (DatagramSocket client = new DatagramSocket()) {
+                                byte[] hello = {0x16};
+                                client.send(
+                                        new DatagramPacket(
+                                                hello,
+                                                hello.length,
+                                                InetAddress.getLoopbackAddress(),
+                                                port));
+                            }
+                            return 0;
+                        },
+                        () -> 0,
+                        Executors.defaultThreadFactory())) {
+            // datagrams sent before the port is bound are lost and sent again by later triggers
+            monitor.startTriggering();
+            assertTrue(monitor.awaitDatagram(port, 5000, () -> false));
+        }
+    }
+}
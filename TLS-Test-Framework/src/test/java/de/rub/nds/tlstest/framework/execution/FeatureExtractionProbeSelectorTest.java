@@ -0,0 +1,79 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import de.rub.nds.scanner.core.probe.result.TestResult;
+import de.rub.nds.tlsscanner.core.constants.TlsAnalyzedProperty;
+import de.rub.nds.tlsscanner.core.constants.TlsProbeType;
+import de.rub.nds.tlstest.framework.FeatureExtractionResult;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class FeatureExtractionProbeSelectorTest {
+
+    private static final List<TlsProbeType> PROBES =
+            List.of(
+                    TlsProbeType.CIPHER_SUITE,
+                    TlsProbeType.HELLO_RETRY,
+                    TlsProbeType.HTTP_HEADER,
+                    TlsProbeType.CONNECTION_CLOSING_DELTA);
+
+    static class HelloRetryReader {
+        TestResult read(FeatureExtractionResult result) {
+            return result.getResult(TlsAnalyzedProperty.SENDS_HELLO_RETRY_REQUEST);
+        }
+    }
+
+    static class ClosingDeltaReader {
+        long read(FeatureExtractionResult result) {
+            return result.getClosedAfterAppDataDelta();
+        }
+    }
+
+    static class ResultMapReader {
+        TestResult read(FeatureExtractionResult result) {
+            return result.getResultMap().get(TlsAnalyzedProperty.SENDS_HELLO_RETRY_REQUEST);
+        }
+    }
+
+    static class PropertyParameterReader {
+        TestResult read(FeatureExtractionResult result, TlsAnalyzedProperty property) {
+            return result.getResult(property);
+        }
+    }
+
+    private final FeatureExtractionProbeSelector selector =
+            new FeatureExtractionProbeSelector(getClass().getClassLoader());
+
+    @Test
+    public void keepsProbesReadByTests() {
+        assertEquals(
+                List.of(TlsProbeType.CIPHER_SUITE, TlsProbeType.HELLO_RETRY),
+                selector.selectProbes(PROBES, Set.of(HelloRetryReader.class.getName())));
+        assertEquals(
+                List.of(TlsProbeType.CIPHER_SUITE, TlsProbeType.CONNECTION_CLOSING_DELTA),
+                selector.selectProbes(PROBES, Set.of(ClosingDeltaReader.class.getName())));
+    }
+
+    @Test
+    public void keepsAllProbesIfResultsAreReadIndirectly() {
+        assertEquals(
+                PROBES, selector.selectProbes(PROBES, Set.of(ResultMapReader.class.getName())));
+        assertEquals(
+                PROBES,
+                selector.selectProbes(PROBES, Set.of(PropertyParameterReader.class.getName())));
+    }
+
+    @Test
+    public void keepsAllProbesIfTestClassIsUnknown() {
+        assertEquals(PROBES, selector.selectProbes(PROBES, Set.of("does.not.Exist")));
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class PreparationWarmupTest {
+
+    @Test
+    public void runsTasksConcurrently() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        try (PreparationWarmup warmup = new PreparationWarmup(Executors.defaultThreadFactory())) {
+            CompletableFuture<Boolean> first =
+                    warmup.submit(
+                            "first",
+                            () -> {
+                                bothStarted.countDown();
+                                return awaitLatch(bothStarted);
+                            });
+            CompletableFuture<Boolean> second =
+                    warmup.submit(
+                            "second",
+                            () -> {
+                                bothStarted.countDown();
+                                return awaitLatch(bothStarted);
+                            });
+            warmup.awaitCompletion();
+            assertTrue(first.get());
+            assertTrue(second.get());
+        }
+    }
+
+    @Test
+    public void awaitsFailedTasksWithoutThrowing() {
+        try (PreparationWarmup warmup = new PreparationWarmup(Executors.defaultThreadFactory())) {
+            CompletableFuture<Object> failed =
+                    warmup.submit(
+                            "failing",
+                            () -> {
+                                throw new IllegalStateException("expected");
+                            });
+            CompletableFuture<String> succeeded = warmup.submit("succeeding", () -> "done");
+            warmup.awaitCompletion();
+            assertTrue(failed.isCompletedExceptionally());
+            assertEquals("done", succeeded.join());
+        }
+    }
+
+    private static boolean awaitLatch(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import de.rub.nds.tlsattacker.transport.socket.SocketState;
+import de.rub.nds.tlstest.framework.execution.ReexecutionPolicy.FailureClass;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class ReexecutionPolicyTest {
+
+    @Test
+    public void reexecutesOnlyTransientFailures() {
+        ReexecutionPolicy policy = new ReexecutionPolicy(2, 10);
+        assertFalse(policy.shouldReexecute(FailureClass.NONE, 0));
+        assertFalse(policy.shouldReexecute(FailureClass.DETERMINISTIC, 0));
+        assertTrue(policy.shouldReexecute(FailureClass.TRANSIENT_TRANSPORT, 0));
+        assertTrue(policy.shouldReexecute(FailureClass.TRANSIENT_TRANSPORT, 1));
+        assertFalse(policy.shouldReexecute(FailureClass.TRANSIENT_TRANSPORT, 2));
+    }
+
+    @Test
+    public void classifiesByExchangedMessages() {
+        assertEquals(
+                FailureClass.NONE,
+                ReexecutionPolicy.classify(null, false, false, true, SocketState.UP));
+        assertEquals(
+                FailureClass.TRANSIENT_TRANSPORT,
+                ReexecutionPolicy.classify(
+                        new IOException(new ConnectException()),
+                        true,
+                        false,
+                        false,
+                        SocketState.SOCKET_EXCEPTION));
+        assertEquals(
+                FailureClass.DETERMINISTIC,
+                ReexecutionPolicy.classify(null, true, true, true, SocketState.CLOSED));
+        // the SUT resets the connection after receiving our first flight
+        assertEquals(
+                FailureClass.DETERMINISTIC,
+                ReexecutionPolicy.classify(
+                        null, true, false, true, SocketState.SOCKET_EXCEPTION));
+        assertEquals(
+                FailureClass.DETERMINISTIC,
+                ReexecutionPolicy.classify(null, true, false, true, SocketState.CLOSED));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void countsReexecutionsPerClass() {
+        ReexecutionPolicy policy = new ReexecutionPolicy(1, 10);
+        policy.shouldReexecute(FailureClass.TRANSIENT_TRANSPORT, 0);
+        policy.shouldReexecute(FailureClass.TRANSIENT_TRANSPORT, 1);
+        policy.shouldReexecute(FailureClass.DETERMINISTIC, 0);
+
+        Map<String, Object> statistics = policy.getStatistics();
+        Map<String, Long> reexecuted = (Map<String, Long>) statistics.get("Reexecuted");
+        Map<String, Long> notReexecuted = (Map<String, Long>) statistics.get("NotReexecuted");
+        assertEquals(1L, (long) reexecuted.get(FailureClass.TRANSIENT_TRANSPORT.name()));
+        assertEquals(1L, (long) notReexecuted.get(FailureClass.TRANSIENT_TRANSPORT.name()));
+        assertEquals(1L, (long) notReexecuted.get(FailureClass.DETERMINISTIC.name()));
+    }
+
+    @Test
+    public void boundsBackoff() {
+        ReexecutionPolicy policy = new ReexecutionPolicy(3, 100);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.getBackoffMillis(0) <= 100);
+            assertTrue(policy.getBackoffMillis(2) <= 400);
+            assertTrue(policy.getBackoffMillis(40) <= 5000);
+        }
+        assertEquals(0, new ReexecutionPolicy(3, 0).getBackoffMillis(1));
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+public class ServerReadinessProbeTest {
+
+    private static final byte[] ALERT = {0x15, 0x03, 0x03, 0x00, 0x02, 0x02, 0x28};
+
+    private static int readUint(byte[] data, int offset, int length) {
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    @Test
+    public void createsConsistentClientHellos() {
+        byte[] tlsHello = ServerReadinessProbe.createClientHello("example.com", false);
+        assertEquals(0x16, tlsHello[0]);
+        assertEquals(tlsHello.length - 5, readUint(tlsHello, 3, 2));
+        assertEquals(0x01, tlsHello[5]);
+        assertEquals(tlsHello.length - 9, readUint(tlsHello, 6, 3));
+
+        byte[] dtlsHello = ServerReadinessProbe.createClientHello(null, true);
+        assertEquals(0x16, dtlsHello[0]);
+        assertEquals(dtlsHello.length - 13, readUint(dtlsHello, 11, 2));
+        assertEquals(dtlsHello.length - 25, readUint(dtlsHello, 14, 3));
+        assertEquals(dtlsHello.length - 25, readUint(dtlsHello, 22, 3));
+    }
+
+    @Test
+    public void recognizesTlsRecords() {
+        assertTrue(ServerReadinessProbe.isTlsResponse(ByteBuffer.wrap(ALERT), false));
+        assertFalse(ServerReadinessProbe.isTlsResponse(ByteBuffer.wrap(ALERT), true));
+        assertFalse(
+                ServerReadinessProbe.isTlsResponse(
+                        ByteBuffer.wrap("HTTP/1.1 400".getBytes()), false));
+        assertFalse(ServerReadinessProbe.isTlsResponse(ByteBuffer.wrap(new byte[] {0x16}), false));
+    }
+
+    @Test
+    public void readyOnceServerAnswersClientHello() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread server =
+                    new Thread(
+                            () -> {
+                                try (Socket socket = serverSocket.accept()) {
+                                    InputStream input = socket.getInputStream();
+                                    if (input.read() == 0x16) {
+                                        socket.getOutputStream().write(ALERT);
+                                    }
+                                } catch (IOException ignored) {
+                                }
+                            });
+            server.start();
+
+            ServerReadinessProbe probe =
+                    new ServerReadinessProbe("localhost", serverSocket.getLocalPort(), false, 5000);
+            assertTrue(probe.isReady());
+            server.join();
+        }
+    }
+
+    @Test
+    public void notReadyIfServerDoesNotAnswer() throws Exception {
+        // the connection is accepted by the operating system but never answered
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            ServerReadinessProbe probe =
+                    new ServerReadinessProbe("localhost", serverSocket.getLocalPort(), false, 200);
+            assertFalse(probe.isReady());
+        }
+    }
+
+    @Test
+    public void stopsWaitingAtDeadline() throws Exception {
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        ServerReadinessProbe probe = new ServerReadinessProbe("localhost", port, false, 100);
+        long start = System.currentTimeMillis();
+        assertFalse(probe.awaitReadiness(500, () -> false));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    @Test
+    public void readyOnceDtlsServerAnswers() throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        try (DatagramSocket serverSocket = new DatagramSocket(0, loopback)) {
+            Thread server =
+                    new Thread(
+                            () -> {
+                                byte[] buffer = new byte[1024];
+                                DatagramPacket request = new DatagramPacket(buffer, buffer.length);
+                                try {
+                                    serverSocket.receive(request);
+                                    byte[] helloVerifyRequest = {0x16, (byte) 0xFE, (byte) 0xFF};
+                                    serverSocket.send(
+                                            new DatagramPacket(
+                                                    helloVerifyRequest,
+                                                    helloVerifyRequest.length,
+                                                    request.getSocketAddress()));
+                                } catch (IOException ignored) {
+                                }
+                            });
+            server.start();
+
+            ServerReadinessProbe probe =
+                    new ServerReadinessProbe(
+                            loopback.getHostAddress(),
+                            serverSocket.getLocalPort(),
+                            true,
+                            5000);
+            assertTrue(probe.isReady());
+            server.join();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class ServerRestartCoordinatorTest {
+
+    @Test
+    public void restartsOnceDrained() throws InterruptedException {
+        AtomicInteger restarts = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        CountDownLatch resumed = new CountDownLatch(1);
+        ServerRestartCoordinator coordinator =
+                new ServerRestartCoordinator(
+                        2,
+                        () -> {
+                            assertEquals(2, started.get());
+                            restarts.incrementAndGet();
+                            return 0;
+                        },
+                        () -> true,
+                        1000,
+                        Executors.defaultThreadFactory());
+
+        coordinator.submit(started::incrementAndGet);
+        coordinator.submit(started::incrementAndGet);
+        coordinator.submit(
+                () -> {
+                    started.incrementAndGet();
+                    resumed.countDown();
+                });
+        assertEquals(2, started.get());
+        assertEquals(1, coordinator.getQueued());
+
+        coordinator.onCompletion();
+        assertEquals(0, restarts.get());
+        coordinator.onCompletion();
+
+        assertTrue(resumed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, restarts.get());
+        assertEquals(3, started.get());
+        assertEquals(1, coordinator.getHandshakesSinceRestart());
+    }
+}
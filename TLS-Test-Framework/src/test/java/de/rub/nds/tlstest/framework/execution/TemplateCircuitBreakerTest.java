@@ -0,0 +1,39 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import org.junit.jupiter.api.Test;
+
+public class TemplateCircuitBreakerTest {
+
+    @Test
+    public void opensAfterConsecutiveIdenticalFailures() {
+        TemplateCircuitBreaker circuitBreaker = new TemplateCircuitBreaker(3);
+        for (int i = 0; i < 2; i++) {
+            circuitBreaker.recordFailureSignature("a", "A", "timeout");
+            assertNull(circuitBreaker.acquire("a"));
+        }
+        circuitBreaker.recordFailureSignature("a", "A", "timeout");
+        assertNotNull(circuitBreaker.acquire("a"));
+        assertNull(circuitBreaker.acquire("b"));
+    }
+
+    @Test
+    public void resetsOnSuccessOrDifferentFailure() {
+        TemplateCircuitBreaker circuitBreaker = new TemplateCircuitBreaker(2);
+        circuitBreaker.recordFailureSignature("a", "A", "timeout");
+        circuitBreaker.recordFailureSignature("a", "A", null);
+        circuitBreaker.recordFailureSignature("a", "A", "timeout");
+        circuitBreaker.recordFailureSignature("a", "A", "reset");
+        assertNull(circuitBreaker.acquire("a"));
+        circuitBreaker.recordFailureSignature("a", "A", "reset");
+        assertNotNull(circuitBreaker.acquire("a"));
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import de.rub.nds.tlsscanner.core.constants.TlsProbeType;
+import de.rub.nds.tlsscanner.serverscanner.report.ServerReport;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class TestPreparatorTest {
+
+    @Test
+    public void exclusiveScanIncludesRequiredProbes() {
+        List<TlsProbeType> exclusiveProbes =
+                TestPreparator.getExclusiveScanProbes(
+                        List.of(
+                                TlsProbeType.CIPHER_SUITE,
+                                TlsProbeType.PROTOCOL_VERSION,
+                                TlsProbeType.CONNECTION_CLOSING_DELTA));
+        assertEquals(
+                List.of(TlsProbeType.PROTOCOL_VERSION, TlsProbeType.CONNECTION_CLOSING_DELTA),
+                exclusiveProbes);
+    }
+
+    @Test
+    public void noExclusiveScanWithoutExclusiveProbes() {
+        assertTrue(
+                TestPreparator.getExclusiveScanProbes(
+                                List.of(TlsProbeType.CIPHER_SUITE, TlsProbeType.PROTOCOL_VERSION))
+                        .isEmpty());
+    }
+
+    @Test
+    public void deltasOfExclusiveScanAreMerged() {
+        ServerReport serverReport = new ServerReport("hostname", 4433);
+        ServerReport exclusiveReport = new ServerReport("hostname", 4433);
+        exclusiveReport.setClosedAfterAppDataDelta(42L);
+        exclusiveReport.setClosedAfterFinishedDelta(23L);
+
+        TestPreparator.mergeExclusiveReport(serverReport, exclusiveReport);
+
+        assertEquals(42, (long) serverReport.getClosedAfterAppDataDelta());
+        assertEquals(23, (long) serverReport.getClosedAfterFinishedDelta());
+    }
+}
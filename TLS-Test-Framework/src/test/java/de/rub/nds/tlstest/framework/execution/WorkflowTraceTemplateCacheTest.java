@@ -0,0 +1,56 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.execution;
+
+import static org.junit.Assert.*;
+
+import de.rub.nds.anvilcore.constants.TestEndpointType;
+import de.rub.nds.tlsattacker.core.config.Config;
+import de.rub.nds.tlsattacker.core.constants.NamedGroup;
+import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
+import de.rub.nds.tlsattacker.core.workflow.factory.WorkflowTraceType;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class WorkflowTraceTemplateCacheTest {
+
+    private final List<Object> traceSpecification = List.of(WorkflowTraceType.HANDSHAKE);
+
+    @Test
+    public void reusesTemplateForEqualConfigs() {
+        WorkflowTraceTemplateCache cache = new WorkflowTraceTemplateCache();
+        Config config = Config.createConfig();
+
+        WorkflowTrace first = getTrace(cache, config);
+        WorkflowTrace second = getTrace(cache, config.createCopy());
+
+        assertNotSame(first, second);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void distinguishesConfigsDifferingInKeyShareGroups() {
+        WorkflowTraceTemplateCache cache = new WorkflowTraceTemplateCache();
+        Config config = Config.createConfig();
+        config.setDefaultClientKeyShareNamedGroups(List.of(NamedGroup.ECDH_X25519));
+        Config otherGroups = config.createCopy();
+        otherGroups.setDefaultClientKeyShareNamedGroups(List.of(NamedGroup.SECP384R1));
+
+        getTrace(cache, config);
+        getTrace(cache, otherGroups);
+
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    private WorkflowTrace getTrace(WorkflowTraceTemplateCache cache, Config config) {
+        return cache.getTrace(
+                config, TestEndpointType.SERVER, traceSpecification, WorkflowTrace::new);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.index;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class TestIndexTest {
+
+    private static final String CLASS_NAME = TestIndexTest.class.getName();
+    // contains no other classes with JUnit tests
+    private static final String PACKAGE_NAME = TestIndexTest.class.getPackageName();
+
+    private static final String INDEX =
+            TestIndex.HEADER
+                    + "\n"
+                    + CLASS_NAME
+                    + "\treadsEntries\n"
+                    + CLASS_NAME
+                    + "\twritesParsableEntries\n"
+                    + CLASS_NAME
+                    + "\trejectsUnknownFormat\n"
+                    + CLASS_NAME
+                    + "\trejectsIncompleteClasses\n"
+                    + CLASS_NAME
+                    + "\trejectsMissingClasses\n"
+                    + "other.Test\tnonCombinatorial\n";
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface IndexedTest {}
+
+    static class UnindexedTests {
+        @IndexedTest
+        void unindexed() {}
+    }
+
+    @Test
+    public void readsEntries() throws Exception {
+        TestIndex testIndex = TestIndex.read(new StringReader(INDEX));
+        assertEquals(6, testIndex.getEntries().size());
+
+        List<TestIndex.Entry> entries = testIndex.getEntries("de.rub.nds.tlstest");
+        assertEquals(5, entries.size());
+        assertEquals(CLASS_NAME, entries.get(0).getClassName());
+        assertEquals("readsEntries", entries.get(0).getMethodName());
+
+        Set<Method> testMethods =
+                testIndex.resolveTestMethods(
+                        PACKAGE_NAME, getClass().getClassLoader(), List.of(Test.class));
+        assertEquals(5, testMethods.size());
+        assertTrue(testMethods.contains(TestIndexTest.class.getMethod("readsEntries")));
+    }
+
+    @Test
+    public void writesParsableEntries() throws Exception {
+        TestIndex testIndex = TestIndex.read(new StringReader(INDEX));
+        for (TestIndex.Entry entry : testIndex.getEntries()) {
+            TestIndex.Entry parsed = TestIndex.Entry.parse(entry.toLine());
+            assertEquals(entry.toLine(), parsed.toLine());
+        }
+    }
+
+    @Test
+    public void rejectsUnknownFormat() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> TestIndex.read(new StringReader("# unknown\n")));
+    }
+
+    @Test
+    public void rejectsIncompleteClasses() throws Exception {
+        // e.g. written before tests were added to the class
+        String index = TestIndex.HEADER + "\n" + CLASS_NAME + "\treadsEntries\n";
+        TestIndex testIndex = TestIndex.read(new StringReader(index));
+        assertThrows(
+                ReflectiveOperationException.class,
+                () ->
+                        testIndex.resolveTestMethods(
+                                PACKAGE_NAME, getClass().getClassLoader(), List.of(Test.class)));
+    }
+
+    @Test
+    public void rejectsMissingClasses() throws Exception {
+        String className = UnindexedTests.class.getName();
+        assertTrue(
+                TestIndex.listClassNames(PACKAGE_NAME, getClass().getClassLoader())
+                        .contains(className));
+
+        TestIndex emptyIndex = TestIndex.read(new StringReader(TestIndex.HEADER + "\n"));
+        assertThrows(
+                ReflectiveOperationException.class,
+                () ->
+                        emptyIndex.resolveTestMethods(
+                                PACKAGE_NAME,
+                                getClass().getClassLoader(),
+                                List.of(IndexedTest.class)));
+
+        String index = TestIndex.HEADER + "\n" + className + "\tunindexed\n";
+        assertEquals(
+                1,
+                TestIndex.read(new StringReader(index))
+                        .resolveTestMethods(
+                                PACKAGE_NAME,
+                                getClass().getClassLoader(),
+                                List.of(IndexedTest.class))
+                        .size());
+    }
+}
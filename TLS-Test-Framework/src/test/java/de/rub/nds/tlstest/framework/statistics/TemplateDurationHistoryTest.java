@@ -0,0 +1,49 @@
+/**
+ * TLS-Test-Framework - A framework for modeling TLS tests
+ *
+ * <p>Copyright 2022 Ruhr University Bochum
+ *
+ * <p>Licensed under Apache License 2.0 http://www.apache.org/licenses/LICENSE-2.0
+ */
+package de.rub.nds.tlstest.framework.statistics;
+
+import static org.junit.Assert.*;
+
+import de.rub.nds.tlstest.framework.anvil.TestCasePhase;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TemplateDurationHistoryTest {
+
+    @Test
+    public void storesMeasuredDurations(@TempDir Path directory) throws IOException {
+        PhaseTimingStatistics phaseTimingStatistics = new PhaseTimingStatistics();
+        RunMetrics runMetrics = new RunMetrics();
+        phaseTimingStatistics.record("a.B.first", TestCasePhase.HANDSHAKE_EXECUTION, 300_000_000L);
+        phaseTimingStatistics.record("a.B.second", TestCasePhase.HANDSHAKE_EXECUTION, 100_000_000L);
+        phaseTimingStatistics.record("a.C.first", TestCasePhase.HANDSHAKE_EXECUTION, 50_000_000L);
+        runMetrics.recordHandshake("a.B.first", 0, false, false);
+
+        TemplateDurationHistory history = new TemplateDurationHistory();
+        history.update(phaseTimingStatistics, runMetrics);
+        Path historyFile = directory.resolve("history.json");
+        history.save(historyFile);
+        assertTrue(Files.isRegularFile(historyFile));
+
+        TemplateDurationHistory loadedHistory = TemplateDurationHistory.load(historyFile);
+        assertEquals(400, loadedHistory.getClassDurationMillis("a.B"));
+        assertEquals(50, loadedHistory.getClassDurationMillis("a.C"));
+        assertEquals(-1, loadedHistory.getClassDurationMillis("a.D"));
+        assertEquals(1, loadedHistory.getTemplates().get("a.B.first").getTestCases());
+    }
+
+    @Test
+    public void ignoresMissingFile(@TempDir Path directory) {
+        TemplateDurationHistory history =
+                TemplateDurationHistory.load(directory.resolve("missing.json"));
+        assertTrue(history.getTemplates().isEmpty());
+    }
+}
@@ -87,7 +87,8 @@ public class KeyShare extends Tls13Test {
         Config c = getPreparedConfig(argumentAccessor, runner);
 
         ClientHelloMessage chm = context.getReceivedClientHelloMessage();
-        List<NamedGroup> groups = context.getFeatureExtractionResult().getNamedGroups();
+        List<NamedGroup> groups =
+                new ArrayList<>(context.getFeatureExtractionResult().getNamedGroups());
         KeyShareExtensionMessage keyshare = chm.getExtension(KeyShareExtensionMessage.class);
 
         for (KeyShareEntry i : keyshare.getKeyShareList()) {
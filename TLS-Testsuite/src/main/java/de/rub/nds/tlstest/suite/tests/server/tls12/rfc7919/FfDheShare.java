@@ -139,7 +139,8 @@ public class FfDheShare extends Tls12Test {
             ArgumentsAccessor argumentAccessor, WorkflowRunner runner) {
         Config config = getPreparedConfig(argumentAccessor, runner);
         config.setAddEllipticCurveExtension(true);
-        config.setDefaultClientNamedGroups(context.getFeatureExtractionResult().getNamedGroups());
+        config.setDefaultClientNamedGroups(
+                new LinkedList<>(context.getFeatureExtractionResult().getNamedGroups()));
         context.getFeatureExtractionResult()
                 .getCipherSuites()
                 .forEach(
@@ -107,7 +107,8 @@ public class KeyShare extends Tls13Test {
     public void serverOnlyOffersOneKeyshare(
             ArgumentsAccessor argumentAccessor, WorkflowRunner runner) {
         Config c = getPreparedConfig(argumentAccessor, runner);
-        List<NamedGroup> supportedTls13 = context.getFeatureExtractionResult().getTls13Groups();
+        List<NamedGroup> supportedTls13 =
+                new ArrayList<>(context.getFeatureExtractionResult().getTls13Groups());
 
         // place selected group at the top to avoid (optional) HRR
         NamedGroup selectedGroup =
@@ -124,7 +125,8 @@ public class KeyShare extends Tls13Test {
     public void serverOnlyOffersOneKeyshareAllGroupsAtOnce(
             ArgumentsAccessor argumentAccessor, WorkflowRunner runner) {
         Config c = getPreparedConfig(argumentAccessor, runner);
-        List<NamedGroup> supportedTls13 = context.getFeatureExtractionResult().getTls13Groups();
+        List<NamedGroup> supportedTls13 =
+                new ArrayList<>(context.getFeatureExtractionResult().getTls13Groups());
         c.setDefaultClientKeyShareNamedGroups(supportedTls13);
         c.setDefaultClientNamedGroups(supportedTls13);
         performOneKeyshareTest(c, runner);